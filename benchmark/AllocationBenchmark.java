@@ -0,0 +1,64 @@
+package benchmark;
+
+import java.lang.management.ManagementFactory;
+
+import interpreter.Interpreter;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.Variable;
+import interpreter.value.ValueFactory;
+
+// Mede quantos bytes cada avaliação de uma condição de laço aloca. Depois
+// do aquecimento nenhuma deve alocar; se alguma alocar, o programa termina
+// com status 1.
+// Uso: java benchmark.AllocationBenchmark
+public class AllocationBenchmark {
+
+    private static final int ITERATIONS = 1_000_000;
+
+    public static void main(String[] args) {
+        Variable i = new Variable(1, "i");
+        Variable e = new Variable(1, "e");
+        i.setSlot(0);
+        e.setSlot(1);
+
+        // As condições só leem variáveis; não há entrada nem saída.
+        Interpreter in = new Interpreter(null, null);
+        in.getMemory().allocate(2);
+        in.getMemory().write(0, ValueFactory.number(100000));
+        in.getMemory().write(1, ValueFactory.number(200000));
+
+        boolean ok = measure(in, "i < e", new BinaryExpr(1, i, BinaryExpr.Op.LowerThanOp, e));
+        ok &= measure(in, "i == e", new BinaryExpr(1, i, BinaryExpr.Op.EqualOp, e));
+        ok &= measure(in, "!(i >= e)", new UnaryExpr(1, new BinaryExpr(1, i, BinaryExpr.Op.GreaterEqualOp, e),
+                UnaryExpr.Op.NotOp));
+
+        if (!ok) {
+            System.out.println("FAILED: loop conditions allocate");
+            System.exit(1);
+        }
+    }
+
+    // A leitura do contador também aloca um pouco; abaixo de um byte por
+    // avaliação, a média impressa é 0 e a condição não aloca.
+    private static boolean measure(Interpreter in, String label, Expr cond) {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().getId();
+
+        int count = 0;
+        for (int k = 0; k < ITERATIONS; k++) {
+            count += cond.expr(in).eval() ? 1 : 0;
+        }
+
+        long before = bean.getThreadAllocatedBytes(id);
+        for (int k = 0; k < ITERATIONS; k++) {
+            count += cond.expr(in).eval() ? 1 : 0;
+        }
+        long after = bean.getThreadAllocatedBytes(id);
+
+        System.out.printf("%-32s %10.3f bytes/op (%d)\n", label, (double) (after - before) / ITERATIONS, count);
+        return after - before < ITERATIONS;
+    }
+
+}
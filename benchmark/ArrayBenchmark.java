@@ -0,0 +1,62 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import interpreter.value.ArrayValue;
+import interpreter.value.NumberValue;
+import interpreter.value.Value;
+import interpreter.value.ValueFactory;
+
+// Compara a lista comum com o vetor persistente (--persistent-arrays)
+// em três cargas: a += [x] repetido, b = a + [x] preservando a (que na
+// lista comum exige uma cópia defensiva) e leitura indexada.
+// Uso: java benchmark.ArrayBenchmark
+public class ArrayBenchmark {
+
+    private static final int N = 200_000;
+    private static final int SNAPSHOTS = 2_000;
+
+    public static void main(String[] args) {
+        for (boolean persistent : new boolean[] { false, true }) {
+            String mode = persistent ? "persistent" : "list";
+
+            Bench.measure(mode + ", a += [x]", 3, 5, () -> append(N, persistent));
+
+            ArrayValue base = append(N, persistent);
+            Bench.measure(mode + ", b = a + [x]", 3, 5, () -> {
+                for (int i = 0; i < SNAPSHOTS; i++) {
+                    ArrayValue a = persistent ? base : new ArrayValue(new ArrayList<Value<?>>(base.value()));
+                    a.concat(single(i, persistent));
+                }
+            });
+
+            Bench.measure(mode + ", a[i]", 3, 5, () -> {
+                int sum = 0;
+                for (int i = 0; i < N; i++) {
+                    sum += ((NumberValue) base.get(i)).intValue();
+                }
+
+                if (sum == 42) {
+                    System.out.println();
+                }
+            });
+        }
+    }
+
+    private static ArrayValue append(int n, boolean persistent) {
+        ArrayValue a = new ArrayValue(new ArrayList<Value<?>>(), persistent);
+        for (int i = 0; i < n; i++) {
+            a = a.concat(single(i, persistent));
+        }
+
+        return a;
+    }
+
+    private static ArrayValue single(int i, boolean persistent) {
+        List<Value<?>> list = new ArrayList<Value<?>>(1);
+        list.add(ValueFactory.number(i));
+        return new ArrayValue(list, persistent);
+    }
+
+}
@@ -0,0 +1,49 @@
+package benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import interpreter.util.ChannelSink;
+import interpreter.util.OutputSink;
+
+public class Bench {
+
+    private Bench() {
+    }
+
+    // Executa a tarefa algumas vezes para aquecer o JIT e depois mede a
+    // média de tempo por execução, em milissegundos.
+    public static double measure(String label, int warmup, int iterations, Runnable task) {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        long elapsed;
+        try {
+            for (int i = 0; i < warmup; i++) {
+                task.run();
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                task.run();
+            }
+            elapsed = System.nanoTime() - start;
+        } finally {
+            System.setOut(out);
+        }
+
+        double ms = elapsed / 1e6 / iterations;
+        System.out.printf("%-32s %10.3f ms/op\n", label, ms);
+        return ms;
+    }
+
+    // Saída que descarta o texto. O System.setOut de measure não alcança o
+    // canal de um ChannelSink.stdout, que escreve direto no descritor.
+    public static OutputSink discard() {
+        return new ChannelSink(Channels.newChannel(OutputStream.nullOutputStream()), StandardCharsets.UTF_8,
+                ChannelSink.Flush.Block);
+    }
+
+}
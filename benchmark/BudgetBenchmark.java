@@ -0,0 +1,66 @@
+package benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import interpreter.Interpreter;
+import interpreter.command.Command;
+import interpreter.util.BudgetExceededException;
+import interpreter.util.BufferSink;
+import interpreter.util.Resolver;
+import lexical.LexicalAnalysis;
+import syntatic.SyntaticAnalysis;
+
+// Mede o custo dos limites de execução no laço apertado (sem limite e com
+// limites altos o bastante para nunca estourar) e quanto tempo um laço
+// infinito leva para ser interrompido pelo prazo.
+// Uso: java benchmark.BudgetBenchmark [miniGroovy file] [timeout ms]
+public class BudgetBenchmark {
+
+    private static final String RUNAWAY = "def x = 0\nwhile (true) {\n  x += 1\n}\n";
+
+    public static void main(String[] args) {
+        String filename = args.length > 0 ? args[0] : "benchmark/loop.mgi";
+        long timeout = args.length > 1 ? Long.parseLong(args[1]) : 100;
+
+        Command c;
+        int frame;
+        try (LexicalAnalysis l = new LexicalAnalysis(filename)) {
+            SyntaticAnalysis s = new SyntaticAnalysis(l);
+            c = s.start();
+            frame = new Resolver().resolve(s.getVariables());
+        }
+
+        double u = Bench.measure("no limits", 30, 30, () -> run(c, frame, 0, 0));
+        double b = Bench.measure("loop budget and timeout", 30, 30,
+                () -> run(c, frame, Long.MAX_VALUE / 2, 3600000));
+        System.out.printf("overhead: %.1f%%\n", (b / u - 1) * 100);
+
+        Command runaway;
+        int runawayFrame;
+        try (LexicalAnalysis l = new LexicalAnalysis(
+                new ByteArrayInputStream(RUNAWAY.getBytes(StandardCharsets.UTF_8)))) {
+            SyntaticAnalysis s = new SyntaticAnalysis(l);
+            runaway = s.start();
+            runawayFrame = new Resolver().resolve(s.getVariables());
+        }
+
+        long start = System.nanoTime();
+        try {
+            run(runaway, runawayFrame, 0, timeout);
+            throw new IllegalStateException("Runaway loop was not stopped");
+        } catch (BudgetExceededException e) {
+            System.out.printf("while (true) stopped after %.1f ms (timeout %d ms): %s\n",
+                    (System.nanoTime() - start) / 1e6, timeout, e.getMessage());
+        }
+    }
+
+    private static void run(Command c, int frame, long loops, long timeout) {
+        Interpreter in = new Interpreter(new BufferSink(), null);
+        in.setLoopBudget(loops);
+        in.setTimeout(timeout);
+        in.getMemory().allocate(frame);
+        in.execute(c);
+    }
+
+}
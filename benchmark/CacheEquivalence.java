@@ -0,0 +1,253 @@
+package benchmark;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import interpreter.cache.AstCache;
+import interpreter.command.Command;
+import interpreter.expr.Variable;
+import lexical.LexicalAnalysis;
+import syntatic.SyntaticAnalysis;
+
+// Confere o .mgic: a árvore carregada do cache (AstWriter e AstReader) é
+// igual à do analisador sintático, com as mesmas linhas e variáveis; o
+// cache é recusado quando qualquer byte do fonte muda (CRC32C e Adler32),
+// quando o cabeçalho é alterado e quando o arquivo está truncado; e várias
+// threads gravando o mesmo script ao mesmo tempo nunca deixam um cache pela
+// metade. Os scripts são copiados para um diretório temporário. Termina
+// com status 1 se alguma verificação falhar.
+// Uso: java benchmark.CacheEquivalence [miniGroovy files...]
+public class CacheEquivalence {
+
+    private static final String[] DIRECTORIES = { "benchmark/corpus", "benchmark/corpus/for" };
+    private static final String[] FILES = { "benchmark/loop.mgi", "test.mgi", "numbers.mgi" };
+
+    private static final int HEADER = 24;
+    private static final int POSITIONS = 512;
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) throws Exception {
+        List<String> files = args.length > 0 ? Arrays.asList(args) : corpus();
+        Path dir = Files.createTempDirectory("mgic");
+
+        int failures = 0;
+        int skipped = 0;
+        try {
+            for (String file : files) {
+                Path script = dir.resolve(new File(file).getName());
+                Files.copy(new File(file).toPath(), script);
+
+                String expected;
+                try {
+                    expected = parse(script);
+                } catch (RuntimeException e) {
+                    // Sem árvore não há o que guardar: o mgi não cria o .mgic.
+                    skipped++;
+                    continue;
+                }
+
+                failures += check(file, roundTrip(script, expected));
+                failures += check(file, staleSource(script));
+                failures += check(file, corruptCache(script));
+                failures += check(file, concurrentStores(script, expected));
+            }
+        } finally {
+            for (File f : dir.toFile().listFiles()) {
+                f.delete();
+            }
+            Files.delete(dir);
+        }
+
+        System.out.printf("%d scripts (%d skipped with syntax errors), %d failures\n",
+                files.size(), skipped, failures);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static List<String> corpus() {
+        List<String> files = new ArrayList<String>();
+        for (String directory : DIRECTORIES) {
+            File[] scripts = new File(directory).listFiles((d, name) -> name.endsWith(".mgi"));
+            Arrays.sort(scripts);
+            for (File script : scripts) {
+                files.add(script.getPath());
+            }
+        }
+
+        files.addAll(Arrays.asList(FILES));
+        return files;
+    }
+
+    private static int check(String file, String problem) {
+        if (problem != null) {
+            System.out.printf("%s: %s\n", file, problem);
+            return 1;
+        }
+
+        return 0;
+    }
+
+    private static String parse(Path script) {
+        try (LexicalAnalysis l = new LexicalAnalysis(script.toString())) {
+            SyntaticAnalysis s = new SyntaticAnalysis(l);
+            Command c = s.start();
+            return ParserEquivalence.tree(c, s.getVariables());
+        }
+    }
+
+    // Grava o .mgic como o mgi faz, a partir dos bytes lidos pelo AstCache.
+    private static void store(Path script) {
+        AstCache cache = new AstCache(script.toString());
+        try (LexicalAnalysis l = new LexicalAnalysis(cache.contents())) {
+            cache.store(new SyntaticAnalysis(l).start());
+        }
+    }
+
+    // A árvore do cache, impressa, ou null se ele foi recusado.
+    private static String load(Path script) {
+        List<Variable> variables = new ArrayList<Variable>();
+        Command c = new AstCache(script.toString()).load(variables);
+        return c != null ? ParserEquivalence.tree(c, variables) : null;
+    }
+
+    private static String roundTrip(Path script, String expected) {
+        store(script);
+        String actual = load(script);
+        if (actual == null) {
+            return "cache just written was not loaded";
+        } else if (!actual.equals(expected)) {
+            return "tree loaded from cache differs\n  expected: " + expected + "\n  actual:   " + actual;
+        }
+
+        return null;
+    }
+
+    // Qualquer byte alterado no fonte, mesmo sem mudar o tamanho, invalida
+    // o cache. A troca de dois bytes vizinhos também.
+    private static String staleSource(Path script) throws Exception {
+        store(script);
+        byte[] source = Files.readAllBytes(script);
+        try {
+            for (int i : positions(source.length)) {
+                byte[] changed = source.clone();
+                changed[i] ^= 0x01;
+                Files.write(script, changed);
+                if (load(script) != null) {
+                    return "cache accepted after source byte " + i + " changed";
+                }
+
+                if (i + 1 < source.length && source[i] != source[i + 1]) {
+                    changed = source.clone();
+                    changed[i] = source[i + 1];
+                    changed[i + 1] = source[i];
+                    Files.write(script, changed);
+                    if (load(script) != null) {
+                        return "cache accepted after source bytes " + i + " and " + (i + 1) + " swapped";
+                    }
+                }
+            }
+        } finally {
+            Files.write(script, source);
+        }
+
+        return null;
+    }
+
+    // Um cabeçalho alterado (marca, versão, tamanho ou checksums) ou um
+    // arquivo truncado em qualquer ponto fazem o cache ser recusado.
+    private static String corruptCache(Path script) throws Exception {
+        store(script);
+        Path mgic = AstCache.cachePath(script);
+        byte[] cache = Files.readAllBytes(mgic);
+        try {
+            for (int i = 0; i < HEADER; i++) {
+                byte[] changed = cache.clone();
+                changed[i] ^= 0x01;
+                Files.write(mgic, changed);
+                if (load(script) != null) {
+                    return "cache accepted with header byte " + i + " changed";
+                }
+            }
+
+            for (int length : positions(cache.length)) {
+                Files.write(mgic, Arrays.copyOf(cache, length));
+                if (load(script) != null) {
+                    return "cache accepted when truncated to " + length + " of " + cache.length + " bytes";
+                }
+            }
+        } finally {
+            Files.write(mgic, cache);
+        }
+
+        return null;
+    }
+
+    // Como no daemon: várias execuções gravam o mesmo script enquanto
+    // outras carregam. Depois que uma gravação termina, o .mgic só é
+    // trocado por outro arquivo completo, então a leitura seguinte sempre
+    // encontra a árvore; e nenhum temporário fica para trás.
+    private static String concurrentStores(Path script, String expected) throws Exception {
+        Files.deleteIfExists(AstCache.cachePath(script));
+
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(threads.submit(() -> {
+                    for (int round = 0; round < ROUNDS; round++) {
+                        store(script);
+                        String actual = load(script);
+                        if (actual == null) {
+                            return "load right after a concurrent store found no complete cache";
+                        } else if (!actual.equals(expected)) {
+                            return "load right after a concurrent store returned a different tree";
+                        }
+                    }
+
+                    return null;
+                }));
+            }
+
+            for (Future<String> result : results) {
+                if (result.get() != null) {
+                    return result.get();
+                }
+            }
+        } finally {
+            threads.shutdown();
+        }
+
+        if (!expected.equals(load(script))) {
+            return "cache left by concurrent stores was not loaded";
+        }
+
+        String[] leftovers = script.getParent().toFile().list((d, name) -> name.endsWith(".tmp"));
+        if (leftovers.length > 0) {
+            return "temporary files left behind: " + Arrays.toString(leftovers);
+        }
+
+        return null;
+    }
+
+    // Todas as posições em arquivos pequenos; nos maiores, uma amostra
+    // espalhada, incluindo o começo e o fim.
+    private static int[] positions(int length) {
+        int n = Math.min(length, POSITIONS);
+        int[] positions = new int[n];
+        for (int i = 0; i < n; i++) {
+            positions[i] = n == length ? i : (int) ((long) i * (length - 1) / (n - 1));
+        }
+
+        return positions;
+    }
+
+}
@@ -0,0 +1,90 @@
+package benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import interpreter.Interpreter;
+import interpreter.command.Command;
+import interpreter.optimizer.Optimizer;
+import interpreter.util.AbortException;
+import interpreter.util.BudgetExceededException;
+import interpreter.util.BufferSink;
+import interpreter.util.ReaderInput;
+import interpreter.util.Resolver;
+import lexical.LexicalAnalysis;
+import syntatic.SyntaticAnalysis;
+
+// Scripts do repositório usados pelas verificações diferenciais, e uma
+// execução dentro do processo que devolve tudo o que o mgi mostraria.
+class Corpus {
+
+    private static final String[] DIRECTORIES = {
+            "benchmark/corpus", "benchmark/corpus/for", "benchmark/corpus/fold"
+    };
+    private static final String[] FILES = { "benchmark/loop.mgi", "test.mgi", "numbers.mgi" };
+
+    // Linhas entregues a read(), as mesmas em todas as execuções.
+    private static final String INPUT = "hello\n21\n-4\n7\n0\n";
+
+    // Um laço que não termina vira uma mensagem igual nos dois lados, em
+    // vez de travar a verificação.
+    private static final long LOOPS = 50000000;
+
+    private Corpus() {
+    }
+
+    static List<String> files() {
+        List<String> files = new ArrayList<String>();
+        for (String directory : DIRECTORIES) {
+            File[] scripts = new File(directory).listFiles((d, name) -> name.endsWith(".mgi"));
+            Arrays.sort(scripts);
+            for (File script : scripts) {
+                files.add(script.getPath());
+            }
+        }
+
+        files.addAll(Arrays.asList(FILES));
+        return files;
+    }
+
+    // A saída do script seguida de como ele terminou: normalmente, abortado
+    // (a mensagem já está na saída), por erro de sintaxe, pelo limite de
+    // voltas ou com uma exceção interna, pela classe e mensagem.
+    static String run(String filename, boolean optimize, boolean mapMemory) {
+        BufferSink output = new BufferSink();
+        Interpreter in = new Interpreter(output,
+                new ReaderInput(new ByteArrayInputStream(INPUT.getBytes(StandardCharsets.UTF_8))));
+        in.setLoopBudget(LOOPS);
+
+        String end;
+        try {
+            Command c;
+            try (LexicalAnalysis l = new LexicalAnalysis(filename)) {
+                SyntaticAnalysis s = new SyntaticAnalysis(l);
+                c = s.start();
+                if (optimize) {
+                    c = Optimizer.standard().optimize(c);
+                }
+                if (!mapMemory) {
+                    in.getMemory().allocate(new Resolver().resolve(s.getVariables()));
+                }
+            }
+
+            in.execute(c);
+            end = "[exit]";
+        } catch (AbortException e) {
+            end = "[aborted]";
+        } catch (BudgetExceededException e) {
+            end = "[" + e.getMessage() + "]";
+        } catch (RuntimeException e) {
+            end = "[" + e.getClass().getName() + ": " + e.getMessage() + "]";
+        }
+
+        return output + end;
+    }
+
+}
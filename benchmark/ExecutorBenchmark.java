@@ -0,0 +1,67 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import interpreter.Interpreter;
+import interpreter.ScriptExecutor;
+import interpreter.command.Command;
+import interpreter.util.BufferSink;
+import interpreter.util.Resolver;
+import lexical.LexicalAnalysis;
+import syntatic.SyntaticAnalysis;
+
+// Executa a mesma árvore várias vezes, uma depois da outra e ao mesmo
+// tempo pelo ScriptExecutor, e confere que todas as execuções imprimem o
+// mesmo resultado.
+// Uso: java benchmark.ExecutorBenchmark [miniGroovy file] [scripts]
+public class ExecutorBenchmark {
+
+    public static void main(String[] args) {
+        String filename = args.length > 0 ? args[0] : "benchmark/loop.mgi";
+        int scripts = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+
+        Command c;
+        int frame;
+        try (LexicalAnalysis l = new LexicalAnalysis(filename)) {
+            SyntaticAnalysis s = new SyntaticAnalysis(l);
+            c = s.start();
+            frame = new Resolver().resolve(s.getVariables());
+        }
+
+        String expected = sequential(c, frame);
+
+        try (ScriptExecutor executor = new ScriptExecutor()) {
+            double q = Bench.measure("sequential, " + scripts + " scripts", 3, 5, () -> {
+                for (int i = 0; i < scripts; i++) {
+                    sequential(c, frame);
+                }
+            });
+
+            double e = Bench.measure("executor, " + scripts + " scripts", 3, 5, () -> {
+                List<CompletableFuture<ScriptExecutor.Result>> results = new ArrayList<>();
+                for (int i = 0; i < scripts; i++) {
+                    results.add(executor.submit(c, frame));
+                }
+
+                for (CompletableFuture<ScriptExecutor.Result> result : results) {
+                    if (!result.join().getOutput().equals(expected)) {
+                        throw new IllegalStateException("Output mismatch");
+                    }
+                }
+            });
+
+            System.out.printf("speedup: %.2fx on %d cpus\n", q / e, Runtime.getRuntime().availableProcessors());
+        }
+    }
+
+    private static String sequential(Command c, int frame) {
+        BufferSink output = new BufferSink();
+        Interpreter in = new Interpreter(output, null);
+        in.getMemory().allocate(frame);
+        in.execute(c);
+        return output.toString();
+    }
+
+}
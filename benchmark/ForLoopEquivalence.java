@@ -0,0 +1,81 @@
+package benchmark;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import interpreter.Interpreter;
+import interpreter.command.Command;
+import interpreter.optimizer.Optimizer;
+import interpreter.util.AbortException;
+import interpreter.util.BufferSink;
+import interpreter.util.Resolver;
+import lexical.LexicalAnalysis;
+import syntatic.SyntaticAnalysis;
+
+// Executa os casos de borda dos laços for contados (contador ou limite
+// escritos no corpo, valores que não são números, estouro de int, nenhuma
+// volta, laços aninhados e que se sobrepõem) e compara a saída com o .out
+// ao lado de cada script, gravado pelo interpretador original, de antes do
+// laço contado. Cada script roda com slots e com --map-memory. Termina com
+// status 1 se alguma saída divergir.
+// Uso: java benchmark.ForLoopEquivalence [corpus directory]
+public class ForLoopEquivalence {
+
+    public static void main(String[] args) throws Exception {
+        File dir = new File(args.length > 0 ? args[0] : "benchmark/corpus/for");
+        File[] scripts = dir.listFiles((d, name) -> name.endsWith(".mgi"));
+        Arrays.sort(scripts);
+
+        int failures = 0;
+        for (File script : scripts) {
+            String name = script.getPath();
+            File out = new File(name.substring(0, name.length() - 4) + ".out");
+            String expected = new String(Files.readAllBytes(out.toPath()), StandardCharsets.UTF_8);
+
+            failures += check(script, "slots", expected, run(name, false)) ? 0 : 1;
+            failures += check(script, "map memory", expected, run(name, true)) ? 0 : 1;
+        }
+
+        System.out.printf("%d scripts, %d mismatches\n", scripts.length, failures);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean check(File script, String mode, String expected, String actual) {
+        if (!expected.equals(actual)) {
+            System.out.printf("%s (%s):\n  expected: %s\n  actual:   %s\n", script.getName(), mode,
+                    expected.replace("\n", "\\n"), actual.replace("\n", "\\n"));
+            return false;
+        }
+
+        return true;
+    }
+
+    // Mesmo caminho do mgi: análise, otimizador e, sem --map-memory, a
+    // resolução das variáveis para slots.
+    private static String run(String filename, boolean mapMemory) {
+        BufferSink output = new BufferSink();
+        Interpreter in = new Interpreter(output, null);
+
+        Command c;
+        try (LexicalAnalysis l = new LexicalAnalysis(filename)) {
+            SyntaticAnalysis s = new SyntaticAnalysis(l);
+            c = Optimizer.standard().optimize(s.start());
+            if (!mapMemory) {
+                in.getMemory().allocate(new Resolver().resolve(s.getVariables()));
+            }
+        }
+
+        try {
+            in.execute(c);
+        } catch (AbortException e) {
+            // A mensagem já está na saída, como no mgi.
+        }
+
+        return output.toString();
+    }
+
+}
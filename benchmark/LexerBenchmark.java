@@ -0,0 +1,44 @@
+package benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import lexical.LexicalAnalysis;
+import lexical.Lexeme;
+import lexical.TokenType;
+
+// Mede a vazão do analisador léxico sobre uma entrada grande, formada pela
+// repetição do script indicado até passar de 16 MB.
+// Uso: java benchmark.LexerBenchmark [miniGroovy file]
+public class LexerBenchmark {
+
+    private static final int SIZE = 16 * 1024 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        String filename = args.length > 0 ? args[0] : "benchmark/loop.mgi";
+        byte[] script = Files.readAllBytes(Paths.get(filename));
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(SIZE + script.length);
+        while (buffer.size() < SIZE) {
+            buffer.write(script);
+            buffer.write('\n');
+        }
+        byte[] input = buffer.toByteArray();
+
+        double ms = Bench.measure("lexer", 5, 10, () -> {
+            try (LexicalAnalysis l = new LexicalAnalysis(new ByteArrayInputStream(input))) {
+                Lexeme lex;
+                do {
+                    lex = l.nextToken();
+                } while (lex.type != TokenType.END_OF_FILE &&
+                        lex.type != TokenType.INVALID_TOKEN &&
+                        lex.type != TokenType.UNEXPECTED_EOF);
+            }
+        });
+
+        System.out.printf("throughput: %.1f MB/s\n", input.length / 1e6 / (ms / 1e3));
+    }
+
+}
@@ -0,0 +1,109 @@
+package benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import lexical.LexicalAnalysis;
+import lexical.Lexeme;
+import lexical.TokenType;
+
+// Confere que o analisador léxico dirigido por tabelas produz a mesma
+// sequência de tokens (tipo, texto e linha) que o ReferenceLexer, sobre os
+// arquivos indicados e sobre entradas geradas pela concatenação aleatória
+// de pedaços que exercitam os prefixos ambíguos. Termina com status 1 se
+// alguma entrada divergir.
+// Uso: java benchmark.LexerEquivalence [generated inputs] [miniGroovy files...]
+public class LexerEquivalence {
+
+    private static final String[] FILES = {
+            "benchmark/corpus/lexer.mgi", "benchmark/loop.mgi", "test.mgi", "numbers.mgi"
+    };
+
+    private static final String[] PIECES = {
+            " ", "\n", "\t", "\r", "/", "//", "/=", "*", "**", "=", "+", "-", ">", "<", "%", "!",
+            "!i", "!in", "i", "n", "in", "&", "&&", "|", "||", "'", "'x'", "' '", "a", "_", "$",
+            "1", "23", "def", "as", "while", ".", ",", ";", ":", "(", ")", "[", "]", "{", "}",
+            "#", "é", "©", "ÿ"
+    };
+
+    public static void main(String[] args) throws Exception {
+        int generated = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        String[] files = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length) : FILES;
+
+        int failures = 0;
+        int skipped = 0;
+        for (String file : files) {
+            failures += compare(file, Files.readAllBytes(Paths.get(file))) ? 0 : 1;
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < generated; i++) {
+            byte[] input = generate(random);
+            try {
+                ReferenceLexer.tokens(input);
+            } catch (ReferenceLexer.UnterminatedTextException e) {
+                skipped++;
+                continue;
+            }
+
+            failures += compare("generated #" + i, input) ? 0 : 1;
+        }
+
+        System.out.printf("%d files, %d generated inputs (%d skipped with unterminated text), %d mismatches\n",
+                files.length, generated, skipped, failures);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean compare(String label, byte[] input) {
+        List<String> expected = ReferenceLexer.tokens(input);
+        List<String> actual = tokens(input, expected.size());
+
+        for (int i = 0; i < Math.max(expected.size(), actual.size()); i++) {
+            String e = i < expected.size() ? expected.get(i) : "(none)";
+            String a = i < actual.size() ? actual.get(i) : "(none)";
+            if (!e.equals(a)) {
+                System.out.printf("%s: token %d differs\n  input:    %s\n  expected: %s\n  actual:   %s\n",
+                        label, i, new String(input, StandardCharsets.ISO_8859_1), e, a);
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // Para um token além do esperado, para não seguir um analisador que
+    // não chega ao fim de arquivo.
+    private static List<String> tokens(byte[] input, int limit) {
+        List<String> tokens = new ArrayList<String>();
+        try (LexicalAnalysis l = new LexicalAnalysis(new ByteArrayInputStream(input))) {
+            Lexeme lex;
+            do {
+                lex = l.nextToken();
+                tokens.add(lex.type + " '" + lex.token() + "' " + l.getLine());
+            } while (lex.type != TokenType.END_OF_FILE && tokens.size() <= limit);
+        }
+
+        return tokens;
+    }
+
+    private static byte[] generate(Random random) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        int n = 1 + random.nextInt(12);
+        for (int i = 0; i < n; i++) {
+            byte[] piece = PIECES[random.nextInt(PIECES.length)].getBytes(StandardCharsets.ISO_8859_1);
+            buffer.write(piece, 0, piece.length);
+        }
+
+        return buffer.toByteArray();
+    }
+
+}
@@ -0,0 +1,143 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import interpreter.value.MapValue;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+
+// Confere que os mapas com formatos (ShapedMap) se comportam como o HashMap
+// que eles substituem: depois de cada operação, o conteúdo e a ordem de
+// iteração (a que aparece no println, em keys() e em values()) precisam ser
+// os mesmos. As operações são as que um script consegue fazer: inserir ou
+// sobrescrever uma chave ([k: v] e m.k = v) e juntar mapas (a + b, que faz
+// putAll no mapa da esquerda, inclusive num mapa vazio, que nasce com a
+// tabela já dimensionada). Há chaves com o mesmo hashCode e mapas que
+// passam de 32 chaves e deixam de usar formatos. Termina com status 1 se
+// alguma sequência divergir.
+// Uso: java benchmark.MapEquivalence [generated sequences]
+public class MapEquivalence {
+
+    // "Aa" e "BB" têm o mesmo hashCode, assim como qualquer concatenação
+    // delas; o resto espalha as chaves pela tabela.
+    private static final String[] KEYS = {
+            "Aa", "BB", "AaAa", "AaBB", "BBAa", "BBBB", "a", "b", "c", "x", "y", "z", "one", "two", "neg", "pos",
+            "key", "value", "k0", "k1", "k2", "k3", "k4", "k5", "k6", "k7", "k8", "k9", "k10", "k11", "k12",
+            "k13", "k14", "k15", "k16", "k17", "k18", "k19", "k20", "k21", "k22", "k23", "k24", "k25", "k26",
+            "k27", "k28", "k29", "k30", "k31", "k32", "k33", "k34", "k35", "k36", "k37", "k38", "k39", "_", "$"
+    };
+
+    private static final int OPERATIONS = 80;
+
+    private static class Pair {
+        private final MapValue shaped = new MapValue();
+        private final Map<String, Value<?>> reference = new HashMap<String, Value<?>>();
+    }
+
+    public static void main(String[] args) {
+        int generated = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+
+        Random random = new Random(42);
+        int failures = 0;
+        for (int i = 0; i < generated; i++) {
+            failures += sequence(random, "sequence #" + i) ? 0 : 1;
+        }
+
+        System.out.printf("%d generated sequences, %d mismatches\n", generated, failures);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Poucas chaves na maioria das sequências, para exercitar os formatos
+    // compartilhados; às vezes quase todas, para passar do limite.
+    private static boolean sequence(Random random, String label) {
+        int keys = random.nextInt(10) == 0 ? KEYS.length : 2 + random.nextInt(14);
+        int operations = 1 + random.nextInt(OPERATIONS);
+
+        Pair pair = new Pair();
+        List<String> log = new ArrayList<String>();
+        for (int i = 0; i < operations; i++) {
+            if (random.nextInt(8) == 0) {
+                Pair other = build(random, keys, random.nextInt(keys + 1));
+                pair.shaped.value().putAll(other.shaped.value());
+                pair.reference.putAll(other.reference);
+                log.add("putAll" + other.reference.keySet());
+            } else {
+                String key = KEYS[random.nextInt(keys)];
+                Value<?> v = value(random);
+                pair.shaped.put(key, v);
+                pair.reference.put(key, v);
+                log.add("put " + key);
+            }
+
+            String problem = compare(pair);
+            if (problem != null) {
+                System.out.printf("%s: %s\n  operations: %s\n", label, problem, log);
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static Pair build(Random random, int keys, int n) {
+        Pair pair = new Pair();
+        for (int i = 0; i < n; i++) {
+            String key = KEYS[random.nextInt(keys)];
+            Value<?> v = value(random);
+            pair.shaped.put(key, v);
+            pair.reference.put(key, v);
+        }
+
+        return pair;
+    }
+
+    private static Value<?> value(Random random) {
+        return random.nextInt(10) == 0 ? null : new TextValue("v" + random.nextInt(1000));
+    }
+
+    private static String compare(Pair pair) {
+        Map<String, Value<?>> shaped = pair.shaped.value();
+        Map<String, Value<?>> reference = pair.reference;
+
+        List<String> expected = entries(reference);
+        List<String> actual = entries(shaped);
+        if (!expected.equals(actual)) {
+            return "iteration differs\n  expected: " + expected + "\n  actual:   " + actual;
+        }
+
+        if (!new ArrayList<String>(reference.keySet()).equals(new ArrayList<String>(shaped.keySet())) ||
+                !new ArrayList<Value<?>>(reference.values()).equals(new ArrayList<Value<?>>(shaped.values()))) {
+            return "keys or values differ from the entries";
+        }
+
+        if (shaped.size() != reference.size() || shaped.isEmpty() != reference.isEmpty()) {
+            return "size differs: expected " + reference.size() + ", actual " + shaped.size();
+        }
+
+        for (String key : KEYS) {
+            if (shaped.get(key) != reference.get(key) || shaped.containsKey(key) != reference.containsKey(key)) {
+                return "lookup of '" + key + "' differs";
+            }
+        }
+
+        return null;
+    }
+
+    // Chave e identidade do valor, na ordem de iteração.
+    private static List<String> entries(Map<String, Value<?>> map) {
+        List<String> entries = new ArrayList<String>();
+        for (Map.Entry<String, Value<?>> e : map.entrySet()) {
+            entries.add(e.getKey() + "=" + (e.getValue() == null ? "null" : e.getValue() + "@"
+                    + System.identityHashCode(e.getValue())));
+        }
+
+        return entries;
+    }
+
+}
@@ -0,0 +1,48 @@
+package benchmark;
+
+import interpreter.Interpreter;
+import interpreter.command.Command;
+import interpreter.util.ReaderInput;
+import interpreter.util.Resolver;
+import lexical.LexicalAnalysis;
+import syntatic.SyntaticAnalysis;
+
+// Compara o acesso a variáveis pelo HashMap global com o frame de slots.
+// Uso: java benchmark.MemoryBenchmark [miniGroovy file]
+public class MemoryBenchmark {
+
+    public static void main(String[] args) {
+        String filename = args.length > 0 ? args[0] : "benchmark/loop.mgi";
+
+        Interpreter in = new Interpreter(Bench.discard(), new ReaderInput(System.in));
+        Command map = parse(in, filename, false);
+        Command slots = parse(in, filename, true);
+
+        double m = Bench.measure("map memory", 5, 20, () -> {
+            in.getMemory().clear();
+            map.execute(in);
+        });
+
+        double s = Bench.measure("slot memory", 5, 20, () -> {
+            in.getMemory().clear();
+            slots.execute(in);
+        });
+
+        System.out.printf("speedup: %.2fx\n", m / s);
+    }
+
+    private static Command parse(Interpreter in, String filename, boolean resolve) {
+        try (LexicalAnalysis l = new LexicalAnalysis(filename)) {
+            SyntaticAnalysis s = new SyntaticAnalysis(l);
+            Command c = s.start();
+
+            if (resolve) {
+                Resolver r = new Resolver();
+                in.getMemory().allocate(r.resolve(s.getVariables()));
+            }
+
+            return c;
+        }
+    }
+
+}
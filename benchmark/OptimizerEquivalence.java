@@ -0,0 +1,36 @@
+package benchmark;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Confere que o otimizador (dobra de constantes e remoção de ramos mortos)
+// não muda o que um script faz: cada script roda com e sem os passes, como
+// com e sem --no-optimize, e a saída e a forma de terminar precisam ser
+// iguais. Os casos de benchmark/corpus/fold cobrem o que não pode ser
+// dobrado (texto mais número, divisão e resto por zero, comparações entre
+// tipos diferentes), que precisa abortar na mesma linha e depois da mesma
+// saída. Termina com status 1 se algum script divergir.
+// Uso: java benchmark.OptimizerEquivalence [miniGroovy files...]
+public class OptimizerEquivalence {
+
+    public static void main(String[] args) {
+        List<String> files = args.length > 0 ? Arrays.asList(args) : Corpus.files();
+
+        int failures = 0;
+        for (String file : files) {
+            String expected = Corpus.run(file, false, false);
+            String actual = Corpus.run(file, true, false);
+            if (!expected.equals(actual)) {
+                System.out.printf("%s:\n  --no-optimize: %s\n  optimized:     %s\n", file,
+                        expected.replace("\n", "\\n"), actual.replace("\n", "\\n"));
+                failures++;
+            }
+        }
+
+        System.out.printf("%d scripts, %d mismatches\n", files.size(), failures);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+}
@@ -0,0 +1,304 @@
+package benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import interpreter.command.Command;
+import lexical.LexicalAnalysis;
+import syntatic.SyntaticAnalysis;
+
+// Confere que o SyntaticAnalysis (precedence climbing) monta as mesmas
+// árvores que o ReferenceParser (um procedimento por nível da gramática).
+// As árvores são comparadas por uma impressão feita por reflexão sobre os
+// campos dos nós, que inclui as linhas e o compartilhamento de objetos;
+// entradas com erro de sintaxe precisam dar a mesma mensagem. Além dos
+// arquivos indicados, usa scripts gerados com expressões aleatórias, parte
+// deles com um token removido ou repetido. Termina com status 1 se alguma
+// entrada divergir.
+// Uso: java benchmark.ParserEquivalence [generated scripts] [miniGroovy files...]
+public class ParserEquivalence {
+
+    private static final String[] FILES = {
+            "benchmark/corpus/parser.mgi", "benchmark/loop.mgi", "test.mgi", "numbers.mgi"
+    };
+
+    private static final String[] RELATIONAL = { "<", ">", "<=", ">=", "==", "!=", "in", "!in" };
+    private static final String[] ARITHMETIC = { "+", "-", "*", "/", "%", "**" };
+
+    private static final String[] TYPES = { "Boolean", "Integer", "String" };
+
+    public static void main(String[] args) throws Exception {
+        int generated = args.length > 0 ? Integer.parseInt(args[0]) : 3000;
+        String[] files = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length) : FILES;
+
+        int failures = 0;
+        int errors = 0;
+        for (String file : files) {
+            failures += compare(file, Files.readAllBytes(Paths.get(file))) ? 0 : 1;
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < generated; i++) {
+            String script = script(random);
+            if (i % 3 == 2) {
+                script = mutate(random, script);
+            }
+
+            byte[] input = script.getBytes(StandardCharsets.ISO_8859_1);
+            errors += parse(input, true).startsWith("error ") ? 1 : 0;
+            failures += compare("generated #" + i, input) ? 0 : 1;
+        }
+
+        System.out.printf("%d files, %d generated scripts (%d with syntax errors), %d mismatches\n",
+                files.length, generated, errors, failures);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean compare(String label, byte[] input) {
+        String expected = parse(input, true);
+        String actual = parse(input, false);
+        if (!expected.equals(actual)) {
+            System.out.printf("%s: trees differ\n  input:    %s\n  expected: %s\n  actual:   %s\n",
+                    label, new String(input, StandardCharsets.ISO_8859_1), expected, actual);
+            return false;
+        }
+
+        return true;
+    }
+
+    // A árvore impressa, ou "error " seguido da mensagem de erro.
+    private static String parse(byte[] input, boolean reference) {
+        try (LexicalAnalysis l = new LexicalAnalysis(new ByteArrayInputStream(input))) {
+            Command c;
+            Object variables;
+            if (reference) {
+                ReferenceParser p = new ReferenceParser(l);
+                c = p.start();
+                variables = p.getVariables();
+            } else {
+                SyntaticAnalysis s = new SyntaticAnalysis(l);
+                c = s.start();
+                variables = s.getVariables();
+            }
+
+            return tree(c, variables);
+        } catch (RuntimeException e) {
+            return "error " + e.getClass().getSimpleName() + ": " + e.getMessage();
+        }
+    }
+
+    // Impressão da árvore e da lista de variáveis criadas junto com ela,
+    // usada também pelo CacheEquivalence.
+    static String tree(Command c, Object variables) {
+        StringBuilder sb = new StringBuilder();
+        Map<Object, Integer> seen = new IdentityHashMap<Object, Integer>();
+        dump(c, sb, seen);
+        sb.append(' ');
+        dump(variables, sb, seen);
+        return sb.toString();
+    }
+
+    // Nós do interpretador são impressos campo a campo; um objeto que já
+    // apareceu vira uma referência #n, o que também cobre os ciclos.
+    private static void dump(Object o, StringBuilder sb, Map<Object, Integer> seen) {
+        if (o == null || o instanceof String || o instanceof Number || o instanceof Boolean ||
+                o instanceof Character || o instanceof Enum) {
+            sb.append(o instanceof String ? "'" + o + "'" : String.valueOf(o));
+            return;
+        }
+
+        Integer id = seen.get(o);
+        if (id != null) {
+            sb.append('#').append(id);
+            return;
+        }
+
+        seen.put(o, seen.size());
+        if (o instanceof List) {
+            sb.append('[');
+            for (Object item : (List<?>) o) {
+                dump(item, sb, seen);
+                sb.append(',');
+            }
+            sb.append(']');
+        } else if (o instanceof Map) {
+            sb.append('{');
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) o).entrySet()) {
+                dump(e.getKey(), sb, seen);
+                sb.append(':');
+                dump(e.getValue(), sb, seen);
+                sb.append(',');
+            }
+            sb.append('}');
+        } else if (o.getClass().isArray()) {
+            sb.append('[');
+            for (int i = 0; i < Array.getLength(o); i++) {
+                dump(Array.get(o, i), sb, seen);
+                sb.append(',');
+            }
+            sb.append(']');
+        } else if (o.getClass().getName().startsWith("interpreter.")) {
+            sb.append(o.getClass().getName().substring("interpreter.".length())).append('(');
+            for (Field f : fields(o.getClass())) {
+                sb.append(f.getName()).append('=');
+                try {
+                    dump(f.get(o), sb, seen);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+                sb.append(' ');
+            }
+            sb.append(')');
+        } else {
+            sb.append(o);
+        }
+    }
+
+    private static List<Field> fields(Class<?> type) {
+        List<Field> fields = new ArrayList<Field>();
+        for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+            for (Field f : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(f.getModifiers()) && !f.isSynthetic()) {
+                    f.setAccessible(true);
+                    fields.add(f);
+                }
+            }
+        }
+
+        return fields;
+    }
+
+    private static String script(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int n = 1 + random.nextInt(4);
+        for (int i = 0; i < n; i++) {
+            switch (random.nextInt(5)) {
+                case 0:
+                    sb.append("def v").append(i).append(" = ").append(expr(random, 2));
+                    break;
+                case 1:
+                    sb.append("a[").append(expr(random, 1)).append("].b = ").append(expr(random, 2));
+                    break;
+                case 2:
+                    sb.append("if (").append(expr(random, 2)).append(") println(").append(expr(random, 2)).append(")");
+                    break;
+                case 3:
+                    sb.append("while (").append(expr(random, 2)).append(") x += ").append(expr(random, 2));
+                    break;
+                default:
+                    sb.append("println(").append(expr(random, 2)).append(")");
+                    break;
+            }
+
+            sb.append('\n');
+        }
+
+        return sb.toString();
+    }
+
+    // Segue a gramática de <expr>, mas de vez em quando encadeia dois
+    // relacionais ou continua a conta depois de um cast, casos que precisam
+    // falhar nos dois analisadores da mesma forma.
+    private static String expr(Random random, int depth) {
+        StringBuilder sb = new StringBuilder(rel(random, depth));
+        while (random.nextInt(4) == 0) {
+            sb.append(random.nextBoolean() ? " && " : " || ").append(rel(random, depth));
+        }
+
+        return sb.toString();
+    }
+
+    private static String rel(Random random, int depth) {
+        StringBuilder sb = new StringBuilder(cast(random, depth));
+        if (random.nextBoolean()) {
+            sb.append(' ').append(RELATIONAL[random.nextInt(RELATIONAL.length)]).append(' ');
+            sb.append(cast(random, depth));
+            if (random.nextInt(100) == 0) {
+                sb.append(' ').append(RELATIONAL[random.nextInt(RELATIONAL.length)]).append(' ');
+                sb.append(cast(random, depth));
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private static String cast(Random random, int depth) {
+        StringBuilder sb = new StringBuilder(arith(random, depth));
+        if (random.nextInt(5) == 0) {
+            sb.append(" as ").append(TYPES[random.nextInt(TYPES.length)]);
+            if (random.nextInt(100) == 0) {
+                sb.append(' ').append(ARITHMETIC[random.nextInt(ARITHMETIC.length)]).append(' ');
+                sb.append(factor(random, depth));
+            }
+        }
+
+        return sb.toString();
+    }
+
+    // + - * / % e **, cada um com a sua precedência; a ordem aleatória
+    // exercita todas as combinações de associatividade.
+    private static String arith(Random random, int depth) {
+        StringBuilder sb = new StringBuilder(factor(random, depth));
+        int n = random.nextInt(4);
+        for (int i = 0; i < n; i++) {
+            sb.append(' ').append(ARITHMETIC[random.nextInt(ARITHMETIC.length)]).append(' ');
+            sb.append(factor(random, depth));
+        }
+
+        return sb.toString();
+    }
+
+    private static String factor(Random random, int depth) {
+        String prefix = random.nextInt(6) == 0 ? "!" : random.nextInt(6) == 0 ? "-" : "";
+        int choice = depth > 0 && random.nextInt(3) == 0 ? 5 + random.nextInt(5) : random.nextInt(5);
+        switch (choice) {
+            case 0:
+                return prefix + random.nextInt(100);
+            case 1:
+                return prefix + "x";
+            case 2:
+                return prefix + "'t" + random.nextInt(10) + "'";
+            case 3:
+                return prefix + (random.nextBoolean() ? "true" : "null");
+            case 4:
+                return prefix + "a.b[" + random.nextInt(3) + "]";
+            case 5:
+            case 6:
+                return prefix + "(" + expr(random, depth - 1) + ")";
+            case 7:
+                return prefix + "size([" + expr(random, depth - 1) + ", " + expr(random, depth - 1) + "])";
+            case 8:
+                return prefix + "[k: " + expr(random, depth - 1) + "]";
+            default:
+                return prefix + "switch (" + expr(random, depth - 1) + ") { case 1 -> " + expr(random, depth - 1) +
+                        " default -> " + expr(random, depth - 1) + " }";
+        }
+    }
+
+    // Remove ou repete uma das palavras do script.
+    private static String mutate(Random random, String script) {
+        List<String> words = new ArrayList<String>(Arrays.asList(script.split(" ")));
+        int i = random.nextInt(words.size());
+        if (random.nextBoolean()) {
+            words.remove(i);
+        } else {
+            words.add(i, words.get(i));
+        }
+
+        return String.join(" ", words);
+    }
+
+}
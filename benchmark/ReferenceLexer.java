@@ -0,0 +1,328 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import lexical.TokenType;
+
+// O analisador léxico de antes das tabelas de transição, com o switch
+// sobre os estados do autômato e a tabela de símbolos num HashMap. Serve
+// de referência para o LexerEquivalence; devolve cada token como
+// "TIPO 'texto' linha".
+public class ReferenceLexer {
+
+    private static final Map<String, TokenType> SYMBOLS = new HashMap<String, TokenType>();
+
+    static {
+        // SYMBOLS
+        SYMBOLS.put(";", TokenType.SEMI_COLON);
+        SYMBOLS.put(":", TokenType.COLON);
+        SYMBOLS.put(",", TokenType.COMMA);
+        SYMBOLS.put(".", TokenType.DOT);
+        SYMBOLS.put("(", TokenType.OPEN_PAR);
+        SYMBOLS.put(")", TokenType.CLOSE_PAR);
+        SYMBOLS.put("{", TokenType.OPEN_CUR);
+        SYMBOLS.put("}", TokenType.CLOSE_CUR);
+        SYMBOLS.put("[", TokenType.OPEN_BRA);
+        SYMBOLS.put("]", TokenType.CLOSE_BRA);
+        SYMBOLS.put("->", TokenType.ARROW);
+
+        // OPERATORS
+        SYMBOLS.put("=", TokenType.ASSIGN);
+        SYMBOLS.put("+=", TokenType.ASSIGN_ADD);
+        SYMBOLS.put("-=", TokenType.ASSIGN_SUB);
+        SYMBOLS.put("*=", TokenType.ASSIGN_MUL);
+        SYMBOLS.put("/=", TokenType.ASSIGN_DIV);
+        SYMBOLS.put("%=", TokenType.ASSIGN_MOD);
+        SYMBOLS.put("**=", TokenType.ASSIGN_POWER);
+        SYMBOLS.put("&&", TokenType.AND);
+        SYMBOLS.put("||", TokenType.OR);
+        SYMBOLS.put("<", TokenType.LOWER);
+        SYMBOLS.put(">", TokenType.GREATER);
+        SYMBOLS.put("<=", TokenType.LOWER_EQUAL);
+        SYMBOLS.put(">=", TokenType.GREATER_EQUAL);
+        SYMBOLS.put("==", TokenType.EQUALS);
+        SYMBOLS.put("!=", TokenType.NOT_EQUALS);
+        SYMBOLS.put("in", TokenType.CONTAINS);
+        SYMBOLS.put("!in", TokenType.NOT_CONTAINS);
+        SYMBOLS.put("+", TokenType.ADD);
+        SYMBOLS.put("-", TokenType.SUB);
+        SYMBOLS.put("*", TokenType.MUL);
+        SYMBOLS.put("/", TokenType.DIV);
+        SYMBOLS.put("%", TokenType.MOD);
+        SYMBOLS.put("**", TokenType.POWER);
+        SYMBOLS.put("!", TokenType.NOT);
+        SYMBOLS.put("as", TokenType.AS);
+
+        // KEYWORDS
+        SYMBOLS.put("def", TokenType.DEF);
+        SYMBOLS.put("print", TokenType.PRINT);
+        SYMBOLS.put("println", TokenType.PRINTLN);
+        SYMBOLS.put("if", TokenType.IF);
+        SYMBOLS.put("else", TokenType.ELSE);
+        SYMBOLS.put("while", TokenType.WHILE);
+        SYMBOLS.put("for", TokenType.FOR);
+        SYMBOLS.put("foreach", TokenType.FOREACH);
+        SYMBOLS.put("Boolean", TokenType.BOOLEAN);
+        SYMBOLS.put("Integer", TokenType.INTEGER);
+        SYMBOLS.put("String", TokenType.STRING);
+        SYMBOLS.put("null", TokenType.NULL);
+        SYMBOLS.put("false", TokenType.FALSE);
+        SYMBOLS.put("true", TokenType.TRUE);
+        SYMBOLS.put("read", TokenType.READ);
+        SYMBOLS.put("empty", TokenType.EMPTY);
+        SYMBOLS.put("size", TokenType.SIZE);
+        SYMBOLS.put("keys", TokenType.KEYS);
+        SYMBOLS.put("values", TokenType.VALUES);
+        SYMBOLS.put("switch", TokenType.SWITCH);
+        SYMBOLS.put("case", TokenType.CASE);
+        SYMBOLS.put("default", TokenType.DEFAULT);
+    }
+
+    private final byte[] input;
+    private int pos;
+    private int line = 1;
+
+        // Um texto sem o apóstrofo de fechamento prende o analisador antigo num
+    // laço sem fim; aqui ele é acusado com esta exceção.
+    public static class UnterminatedTextException extends RuntimeException {
+        UnterminatedTextException() {
+            super("Unterminated text", null, false, false);
+        }
+    }
+
+    public ReferenceLexer(byte[] input) {
+        this.input = input;
+    }
+
+        // Tokens até o fim de arquivo, inclusive.
+    public static List<String> tokens(byte[] input) {
+        ReferenceLexer l = new ReferenceLexer(input);
+        List<String> tokens = new ArrayList<String>();
+        String token;
+        do {
+            token = l.nextToken();
+            tokens.add(token);
+        } while (!token.startsWith(TokenType.END_OF_FILE + " "));
+
+        return tokens;
+    }
+
+    public String nextToken() {
+        StringBuilder token = new StringBuilder();
+        TokenType type = TokenType.END_OF_FILE;
+
+        int state = 1;
+        while (state != 14 && state != 15) {
+            int c = getc();
+            switch (state) {
+                case 1:
+                    if (c == ' ' || c == '\t' || c == '\r') {
+                        state = 1;
+                    } else if (c == '\n') {
+                        line++;
+                        state = 1;
+                    } else if (c == '/') {
+                        token.append((char) c);
+                        state = 2;
+                    } else if (c == '*') {
+                        token.append((char) c);
+                        state = 4;
+                    } else if (c == '+' || c == '=' || c == '<' || c == '>' || c == '%') {
+                        token.append((char) c);
+                        state = 5;
+                    } else if (c == '-') {
+                        token.append((char) c);
+                        state = 6;
+                    } else if (c == '.' || c == ',' || c == ';' || c == ':' ||
+                            c == '(' || c == ')' || c == '[' || c == ']' ||
+                            c == '{' || c == '}') {
+                        token.append((char) c);
+                        state = 14;
+                    } else if (c == '!') {
+                        token.append((char) c);
+                        state = 7;
+                    } else if (c == '&') {
+                        token.append((char) c);
+                        state = 9;
+                    } else if (c == '|') {
+                        token.append((char) c);
+                        state = 10;
+                    } else if (c == '\'') {
+                        state = 13;
+                    } else if (c == '_' || c == '$' || Character.isLetter(c)) {
+                        token.append((char) c);
+                        state = 11;
+                    } else if (Character.isDigit(c)) {
+                        token.append((char) c);
+                        state = 12;
+                    } else if (c == -1) {
+                        type = TokenType.END_OF_FILE;
+                        state = 15;
+                    } else {
+                        token.append((char) c);
+                        type = TokenType.INVALID_TOKEN;
+                        state = 15;
+                    }
+
+                    break;
+                case 2:
+                    if (c == '=') {
+                        token.append((char) c);
+                        state = 14;
+                    } else if (c == '/') {
+                        token.setLength(0);
+                        state = 3;
+                    } else {
+                        ungetc(c);
+                        state = 14;
+                    }
+
+                    break;
+                case 3:
+                    if (c == '\n') {
+                        line++;
+                        state = 1;
+                    } else if (c == -1) {
+                        type = TokenType.END_OF_FILE;
+                        state = 15;
+                    } else {
+                        state = 3;
+                    }
+
+                    break;
+                case 4:
+                    if (c == '=') {
+                        token.append((char) c);
+                        state = 14;
+                    } else if (c == '*') {
+                        token.append((char) c);
+                        state = 5;
+                    } else {
+                        ungetc(c);
+                        state = 14;
+                    }
+
+                    break;
+                case 5:
+                    if (c == '=') {
+                        token.append((char) c);
+                        state = 14;
+                    } else {
+                        ungetc(c);
+                        state = 14;
+                    }
+
+                    break;
+                case 6:
+                    if (c == '=' || c == '>') {
+                        token.append((char) c);
+                        state = 14;
+                    } else {
+                        ungetc(c);
+                        state = 14;
+                    }
+
+                    break;
+                case 7:
+                    if (c == '=') {
+                        token.append((char) c);
+                        state = 14;
+                    } else if (c == 'i') {
+                        state = 8;
+                    } else {
+                        ungetc(c);
+                        state = 14;
+                    }
+
+                    break;
+                case 8:
+                    if (c == 'n') {
+                        token.append("in");
+                        state = 14;
+                    } else {
+                        ungetc(c);
+                        ungetc('i');
+                        state = 14;
+                    }
+
+                    break;
+                case 9:
+                    if (c == '&') {
+                        token.append((char) c);
+                        state = 14;
+                    } else {
+                        type = TokenType.INVALID_TOKEN;
+                        state = 15;
+                    }
+
+                    break;
+                case 10:
+                    if (c == '|') {
+                        token.append((char) c);
+                        state = 14;
+                    } else {
+                        type = TokenType.INVALID_TOKEN;
+                        state = 15;
+                    }
+
+                    break;
+                case 11:
+                    if (c == '$' || c == '_' ||
+                            Character.isLetter(c) || Character.isDigit(c)) {
+                        token.append((char) c);
+                        state = 11;
+                    } else {
+                        ungetc(c);
+                        state = 14;
+                    }
+
+                    break;
+                case 12:
+                    if (Character.isDigit(c)) {
+                        token.append((char) c);
+                        state = 12;
+                    } else {
+                        ungetc(c);
+                        type = TokenType.NUMBER;
+                        state = 15;
+                    }
+
+                    break;
+                case 13:
+                    if (c == -1) {
+                        throw new UnterminatedTextException();
+                    } else if (c != '\'') {
+                        token.append((char) c);
+                        state = 13;
+                    } else {
+                        type = TokenType.TEXT;
+                        state = 15;
+                    }
+
+                    break;
+                default:
+                    throw new IllegalStateException("Unreachable");
+            }
+        }
+
+        if (state == 14) {
+            type = SYMBOLS.getOrDefault(token.toString(), TokenType.NAME);
+        }
+
+        return type + " '" + token + "' " + line;
+    }
+
+    private int getc() {
+        return pos < input.length ? input[pos++] & 0xff : -1;
+    }
+
+    private void ungetc(int c) {
+        if (c != -1) {
+            pos--;
+        }
+    }
+
+}
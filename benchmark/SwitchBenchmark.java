@@ -0,0 +1,60 @@
+package benchmark;
+
+import interpreter.Interpreter;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.CaseItem;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.SwitchExpr;
+import interpreter.expr.Variable;
+import interpreter.value.ValueFactory;
+
+// Mede o custo de um switch em função do número de cases. Com chaves
+// constantes o switch usa a tabela de dispersão; com a primeira chave
+// escrita como '0 + 0' ele é obrigado a fazer a busca linear.
+// Uso: java benchmark.SwitchBenchmark
+public class SwitchBenchmark {
+
+    private static final int LOOKUPS = 100_000;
+
+    public static void main(String[] args) {
+        Variable k = new Variable(1, "k");
+        k.setSlot(0);
+        Interpreter in = new Interpreter(null, null);
+        in.getMemory().allocate(1);
+
+        for (int n = 10; n <= 10_000; n *= 10) {
+            double t = measure(in, "table, " + n + " cases", build(k, n, false), n);
+            double l = measure(in, "linear, " + n + " cases", build(k, n, true), n);
+            System.out.printf("%d cases: %.1f ns vs %.1f ns per lookup\n", n, t, l);
+        }
+    }
+
+    private static SwitchExpr build(Variable k, int n, boolean linear) {
+        SwitchExpr se = new SwitchExpr(1, k);
+        for (int i = 0; i < n; i++) {
+            Expr key = new ConstExpr(1, ValueFactory.number(i));
+            if (linear && i == 0) {
+                key = new BinaryExpr(1, new ConstExpr(1, ValueFactory.number(0)), BinaryExpr.Op.AddOp,
+                        new ConstExpr(1, ValueFactory.number(0)));
+            }
+
+            se.addCase(new CaseItem(key, new ConstExpr(1, ValueFactory.text("case " + i))));
+        }
+
+        return se;
+    }
+
+    // Procura sempre chaves espalhadas por todos os cases.
+    private static double measure(Interpreter in, String label, SwitchExpr se, int n) {
+        double ms = Bench.measure(label, 3, 5, () -> {
+            for (int i = 0; i < LOOKUPS; i++) {
+                in.getMemory().write(0, ValueFactory.number((i * 7919) % n));
+                se.expr(in);
+            }
+        });
+
+        return ms * 1e6 / LOOKUPS;
+    }
+
+}
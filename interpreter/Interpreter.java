@@ -0,0 +1,144 @@
+package interpreter;
+
+import java.util.List;
+
+import interpreter.command.Command;
+import interpreter.util.AbortException;
+import interpreter.util.BudgetExceededException;
+import interpreter.util.InputSource;
+import interpreter.util.Memory;
+import interpreter.util.OutputSink;
+import interpreter.value.ArrayValue;
+import interpreter.value.Value;
+
+// Contexto de uma execução: as variáveis, a entrada e a saída do script e a
+// política de erro. Os nós da árvore recebem o contexto ao executar, em vez
+// de recorrer a estado global, então vários scripts podem rodar ao mesmo
+// tempo na mesma JVM, cada um com o seu Interpreter.
+public class Interpreter {
+
+  // Voltas de laço entre dois pontos de parada (safepoints).
+  private static final int INTERVAL = 4096;
+
+  private final Memory memory = new Memory();
+  private final OutputSink output;
+  private final InputSource input;
+  private boolean cooperative;
+  private boolean persistentArrays;
+
+  // Voltas que ainda podem ser dadas antes do lote corrente de ticks, e o
+  // tamanho desse lote. Os limites só são conferidos quando o lote acaba.
+  private long loops = Long.MAX_VALUE;
+  private int batch = INTERVAL;
+  private int ticks = INTERVAL;
+  private long timeout;
+  private long deadline;
+
+  public Interpreter(OutputSink output, InputSource input) {
+    this.output = output;
+    this.input = input;
+  }
+
+  public Memory getMemory() {
+    return memory;
+  }
+
+  public OutputSink getOutput() {
+    return output;
+  }
+
+  public InputSource getInput() {
+    return input;
+  }
+
+  // --persistent-arrays: os arranjos criados por esta execução usam o
+  // vetor persistente. Fica no contexto para que a opção de um script não
+  // mude a semântica dos outros que rodam na mesma JVM.
+  public void setPersistentArrays(boolean persistentArrays) {
+    this.persistentArrays = persistentArrays;
+  }
+
+  public ArrayValue newArray(List<Value<?>> values) {
+    return new ArrayValue(values, persistentArrays);
+  }
+
+  // Com vários scripts dividindo as mesmas threads (o ScriptExecutor), um
+  // laço que só faz contas cede a vez nos pontos de parada, para não
+  // segurar a thread enquanto os outros esperam.
+  public void setCooperative(boolean cooperative) {
+    this.cooperative = cooperative;
+  }
+
+  // Limite de voltas de laço (somando todos os laços) de uma execução; a
+  // volta seguinte à última permitida interrompe o script. Zero ou menos
+  // tira o limite.
+  public void setLoopBudget(long loops) {
+    this.loops = loops > 0 ? loops : Long.MAX_VALUE;
+    this.batch = nextBatch();
+    this.ticks = batch;
+  }
+
+  // Prazo em milissegundos, contado a partir de execute. É conferido nos
+  // pontos de parada, então um laço passa dele por no máximo INTERVAL
+  // voltas. Zero ou menos tira o prazo.
+  public void setTimeout(long millis) {
+    this.timeout = Math.max(millis, 0);
+  }
+
+  // Chamado ao fim de cada volta de while, for e foreach. O caminho comum
+  // é só decrementar um contador.
+  public void backEdge() {
+    if (--ticks == 0) {
+      safepoint();
+    }
+  }
+
+  private void safepoint() {
+    loops -= batch;
+    if (loops < 0) {
+      throw new BudgetExceededException(BudgetExceededException.Limit.Loops,
+          "Loop budget exceeded");
+    }
+
+    if (timeout > 0 && System.nanoTime() - deadline >= 0) {
+      throw new BudgetExceededException(BudgetExceededException.Limit.Time,
+          "Time limit exceeded");
+    }
+
+    batch = nextBatch();
+    ticks = batch;
+    if (cooperative) {
+      Thread.yield();
+    }
+  }
+
+  // O último lote termina exatamente na volta que passa do limite.
+  private int nextBatch() {
+    return loops < INTERVAL ? (int) loops + 1 : INTERVAL;
+  }
+
+  public void execute(Command command) {
+    guard(() -> command.execute(this));
+  }
+
+  // Um erro de execução imprime a mensagem de sempre na saída do script e
+  // chega a quem chamou como AbortException, sem derrubar a JVM. Um limite
+  // estourado chega como BudgetExceededException, com a saída até ali já
+  // escrita.
+  private void guard(Runnable run) {
+    if (timeout > 0) {
+      deadline = System.nanoTime() + timeout * 1000000L;
+    }
+
+    try {
+      run.run();
+    } catch (AbortException e) {
+      output.print(e.getMessage());
+      output.println();
+      throw e;
+    } finally {
+      output.flush();
+    }
+  }
+
+}
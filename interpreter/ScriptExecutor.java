@@ -0,0 +1,120 @@
+package interpreter;
+
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import interpreter.command.Command;
+import interpreter.util.AbortException;
+import interpreter.util.BudgetExceededException;
+import interpreter.util.BufferSink;
+import interpreter.util.InputSource;
+import interpreter.util.ReaderInput;
+
+// Executa vários scripts ao mesmo tempo na mesma JVM. Cada execução tem o
+// seu Interpreter, com variáveis e saída próprias; a árvore, já analisada
+// e com as variáveis resolvidas, pode ser a mesma para todas. Os laços
+// cedem a vez periodicamente (Interpreter.backEdge), então um script que
+// só faz contas não impede os outros de avançar.
+public class ScriptExecutor implements AutoCloseable {
+
+  public static class Result {
+    private final String output;
+    private final boolean aborted;
+    private final BudgetExceededException.Limit exceeded;
+
+    Result(String output, boolean aborted, BudgetExceededException.Limit exceeded) {
+      this.output = output;
+      this.aborted = aborted;
+      this.exceeded = exceeded;
+    }
+
+    // Tudo que o script imprimiu; se ele abortou, termina com a mesma
+    // mensagem de erro que a linha de comando mostraria.
+    public String getOutput() {
+      return output;
+    }
+
+    public boolean isAborted() {
+      return aborted;
+    }
+
+    // O limite que interrompeu o script, ou null se ele terminou sozinho.
+    // A saída vai até o ponto da interrupção.
+    public BudgetExceededException.Limit getExceeded() {
+      return exceeded;
+    }
+  }
+
+  private final ExecutorService threads = threads();
+  private final long loopBudget;
+  private final long timeout;
+
+  public ScriptExecutor() {
+    this(0, 0);
+  }
+
+  // Limites aplicados a cada script, como em Interpreter.setLoopBudget e
+  // setTimeout: um laço infinito é interrompido no próximo ponto de parada
+  // e a thread fica livre para os outros.
+  public ScriptExecutor(long loopBudget, long timeout) {
+    this.loopBudget = loopBudget;
+    this.timeout = timeout;
+  }
+
+  // frame é o tamanho devolvido pelo Resolver para a árvore. Sem entrada,
+  // read() se comporta como no fim da entrada padrão.
+  public CompletableFuture<Result> submit(Command program, int frame) {
+    return submit(program, frame, new ReaderInput(InputStream.nullInputStream()));
+  }
+
+  // Erros que não são do script (uma exceção interna) completam o future
+  // com a exceção.
+  public CompletableFuture<Result> submit(Command program, int frame, InputSource input) {
+    return CompletableFuture.supplyAsync(() -> run(program, frame, input), threads);
+  }
+
+  @Override
+  public void close() {
+    threads.shutdown();
+  }
+
+  private Result run(Command program, int frame, InputSource input) {
+    BufferSink output = new BufferSink();
+    Interpreter in = new Interpreter(output, input);
+    in.setCooperative(true);
+    in.setLoopBudget(loopBudget);
+    in.setTimeout(timeout);
+    in.getMemory().allocate(frame);
+
+    try {
+      in.execute(program);
+    } catch (AbortException e) {
+      return new Result(output.toString(), true, null);
+    } catch (BudgetExceededException e) {
+      return new Result(output.toString(), false, e.getLimit());
+    }
+
+    return new Result(output.toString(), false, null);
+  }
+
+  // Threads virtuais quando a JVM as oferece (Java 21 em diante), obtidas
+  // por reflexão para o código continuar compilando em versões anteriores.
+  // Sem elas, uma thread de plataforma por script, e o sistema operacional
+  // reparte a CPU entre elas. O daemon usa as mesmas para os pedidos.
+  public static ExecutorService threads() {
+    try {
+      Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) virtual.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "mgi-script");
+        t.setDaemon(true);
+        return t;
+      });
+    }
+  }
+
+}
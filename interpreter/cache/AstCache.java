@@ -0,0 +1,151 @@
+package interpreter.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32C;
+
+import interpreter.command.Command;
+import interpreter.expr.Variable;
+
+// Guarda a árvore de um script em um arquivo .mgic ao lado do fonte. O
+// cabeçalho leva o tamanho e dois checksums (CRC32C e Adler32) do conteúdo
+// do fonte, então qualquer alteração no script invalida o cache sem
+// depender de datas de modificação. Um digest criptográfico custaria mais,
+// com a JVM ainda fria, do que analisar um script pequeno.
+//
+// O fonte é lido uma única vez: os checksums e a análise usam os mesmos
+// bytes (contents), então uma edição do script durante a análise não faz o
+// .mgic associar o checksum de uma versão à árvore de outra.
+public class AstCache {
+
+  private static final int MAGIC = 0x4d474943; // "MGIC"
+  private static final int VERSION = 1;
+
+  private Path source;
+  private Path cache;
+  private long size;
+  private long hash;
+  private byte[] contents;
+
+  public AstCache(String filename) {
+    this.source = Paths.get(filename);
+    this.cache = cachePath(source);
+  }
+
+  public static Path cachePath(Path source) {
+    String name = source.getFileName().toString();
+    if (name.endsWith(".mgi")) {
+      name = name.substring(0, name.length() - 4);
+    }
+
+    return source.resolveSibling(name + ".mgic");
+  }
+
+  // Devolve a árvore em cache e preenche a lista de variáveis, ou null
+  // se o cache não existir, estiver corrompido ou for de outra versão do
+  // fonte.
+  public Command load(List<Variable> variables) {
+    if (!Files.isRegularFile(cache)) {
+      return null;
+    }
+
+    try {
+      ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(cache));
+      if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+        return null;
+      }
+
+      checksum();
+      if (in.getLong() != size || in.getLong() != hash) {
+        return null;
+      }
+
+      AstReader reader = new AstReader(in);
+      Command cmd = reader.command();
+      variables.addAll(reader.getVariables());
+      return cmd;
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  // Falhas ao gravar (diretório somente leitura, disco cheio) apenas
+  // deixam de criar o cache. O arquivo é escrito em um temporário e
+  // movido, para que outra execução nunca leia um cache pela metade. O
+  // temporário tem nome único mesmo dentro de um processo: no daemon e no
+  // ScriptExecutor, várias execuções podem gravar o mesmo script ao mesmo
+  // tempo.
+  public void store(Command cmd) {
+    Path tmp = null;
+    try {
+      tmp = Files.createTempFile(cache.toAbsolutePath().getParent(), cache.getFileName().toString(), ".tmp");
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        checksum();
+        out.writeLong(size);
+        out.writeLong(hash);
+        new AstWriter(out).command(cmd);
+      }
+
+      Files.move(tmp, cache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (Exception e) {
+      try {
+        if (tmp != null) {
+          Files.deleteIfExists(tmp);
+        }
+      } catch (Exception ignored) {
+      }
+    }
+  }
+
+  // O conteúdo do fonte a partir do qual os checksums foram calculados,
+  // ou null se o fonte não puder ser lido.
+  public ByteBuffer contents() {
+    try {
+      checksum();
+    } catch (Exception e) {
+      return null;
+    }
+
+    return ByteBuffer.wrap(contents).asReadOnlyBuffer();
+  }
+
+  Path source() {
+    return source;
+  }
+
+  long size() throws Exception {
+    checksum();
+    return size;
+  }
+
+  long hash() throws Exception {
+    checksum();
+    return hash;
+  }
+
+  private void checksum() throws Exception {
+    if (contents == null) {
+      byte[] bytes = Files.readAllBytes(source);
+      size = bytes.length;
+
+      CRC32C crc = new CRC32C();
+      crc.update(bytes);
+      Adler32 adler = new Adler32();
+      adler.update(bytes);
+
+      hash = crc.getValue() << 32 | adler.getValue();
+      contents = bytes;
+    }
+  }
+
+}
@@ -0,0 +1,248 @@
+package interpreter.cache;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import interpreter.command.AssignCommand;
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.command.DeclarationType1Command;
+import interpreter.command.DeclarationType2Command;
+import interpreter.command.ForCommand;
+import interpreter.command.ForeachCommand;
+import interpreter.command.IfCommand;
+import interpreter.command.PrintCommand;
+import interpreter.command.WhileCommand;
+import interpreter.expr.AccessExpr;
+import interpreter.expr.ArrayExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.CaseItem;
+import interpreter.expr.CastExpr;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.MapExpr;
+import interpreter.expr.MapItem;
+import interpreter.expr.SetExpr;
+import interpreter.expr.SwitchExpr;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.Variable;
+import interpreter.value.Value;
+import interpreter.value.ValueFactory;
+
+// Reconstrói a árvore gravada por AstWriter. Assim como o analisador
+// sintático, guarda as variáveis criadas para que o Resolver atribua os
+// slots.
+public class AstReader {
+
+  private ByteBuffer in;
+  private int line;
+  private List<String> strings;
+  private List<Variable> variables;
+
+  public AstReader(ByteBuffer in) {
+    this.in = in;
+    this.line = 0;
+    this.strings = new ArrayList<String>();
+    this.variables = new ArrayList<Variable>();
+  }
+
+  public List<Variable> getVariables() {
+    return variables;
+  }
+
+  public Command command() throws IOException {
+    int tag = tag();
+    if (tag == Tag.NULL) {
+      return null;
+    }
+
+    int line = line();
+    switch (tag) {
+      case Tag.BLOCKS: {
+        int size = varint();
+        List<Command> cmds = new ArrayList<Command>(size);
+        for (int i = 0; i < size; i++) {
+          cmds.add(command());
+        }
+        return new BlocksCommand(line, cmds);
+      }
+      case Tag.ASSIGN: {
+        AssignCommand.Op op = AssignCommand.Op.values()[tag()];
+        SetExpr lhs = (SetExpr) expr();
+        Expr rhs = expr();
+        return new AssignCommand(line, lhs, op, rhs);
+      }
+      case Tag.DECLARATION_TYPE1: {
+        Variable lhs = (Variable) expr();
+        Expr rhs = expr();
+        return new DeclarationType1Command(line, lhs, rhs);
+      }
+      case Tag.DECLARATION_TYPE2: {
+        int size = varint();
+        List<Variable> lhs = new ArrayList<Variable>(size);
+        for (int i = 0; i < size; i++) {
+          lhs.add((Variable) expr());
+        }
+        Expr rhs = expr();
+        return new DeclarationType2Command(line, lhs, rhs);
+      }
+      case Tag.PRINT: {
+        boolean newline = tag() != 0;
+        return new PrintCommand(line, newline, expr());
+      }
+      case Tag.IF: {
+        Expr expr = expr();
+        IfCommand ic = new IfCommand(line, expr, command());
+        Command elseCmds = command();
+        if (elseCmds != null) {
+          ic.setElseCommands(elseCmds);
+        }
+        return ic;
+      }
+      case Tag.WHILE: {
+        Expr expr = expr();
+        return new WhileCommand(line, expr, command());
+      }
+      case Tag.FOR: {
+        Command init = command();
+        Expr cond = expr();
+        Command inc = command();
+        return new ForCommand(line, init, cond, inc, command());
+      }
+      case Tag.FOREACH: {
+        Variable var = (Variable) expr();
+        Expr expr = expr();
+        return new ForeachCommand(line, var, expr, command());
+      }
+      default:
+        throw new IOException("Invalid command tag " + tag);
+    }
+  }
+
+  public Expr expr() throws IOException {
+    int tag = tag();
+    if (tag == Tag.NULL) {
+      return null;
+    }
+
+    int line = line();
+    switch (tag) {
+      case Tag.VARIABLE: {
+        Variable var = new Variable(line, string());
+        variables.add(var);
+        return var;
+      }
+      case Tag.ACCESS: {
+        SetExpr base = (SetExpr) expr();
+        return new AccessExpr(line, base, expr());
+      }
+      case Tag.CONST:
+        return new ConstExpr(line, value());
+      case Tag.UNARY: {
+        UnaryExpr.Op op = UnaryExpr.Op.values()[tag()];
+        return new UnaryExpr(line, expr(), op);
+      }
+      case Tag.BINARY: {
+        BinaryExpr.Op op = BinaryExpr.Op.values()[tag()];
+        Expr left = expr();
+        return new BinaryExpr(line, left, op, expr());
+      }
+      case Tag.CAST: {
+        CastExpr.Op op = CastExpr.Op.values()[tag()];
+        return new CastExpr(line, expr(), op);
+      }
+      case Tag.ARRAY: {
+        int size = varint();
+        List<Expr> items = new ArrayList<Expr>(size);
+        for (int i = 0; i < size; i++) {
+          items.add(expr());
+        }
+        return new ArrayExpr(line, items);
+      }
+      case Tag.MAP: {
+        MapExpr me = new MapExpr(line);
+        int size = varint();
+        for (int i = 0; i < size; i++) {
+          String key = string();
+          me.addItem(new MapItem(key, expr()));
+        }
+        return me;
+      }
+      case Tag.SWITCH: {
+        SwitchExpr se = new SwitchExpr(line, expr());
+        int size = varint();
+        for (int i = 0; i < size; i++) {
+          Expr key = expr();
+          se.addCase(new CaseItem(key, expr()));
+        }
+        Expr defoult = expr();
+        if (defoult != null) {
+          se.setDefault(defoult);
+        }
+        return se;
+      }
+      default:
+        throw new IOException("Invalid expression tag " + tag);
+    }
+  }
+
+  private Value<?> value() throws IOException {
+    int tag = tag();
+    switch (tag) {
+      case Tag.NULL:
+        return null;
+      case Tag.BOOLEAN:
+        return ValueFactory.bool(tag() != 0);
+      case Tag.NUMBER:
+        return ValueFactory.number(unzigzag(varint()));
+      case Tag.TEXT:
+        return ValueFactory.text(string());
+      default:
+        throw new IOException("Invalid constant tag " + tag);
+    }
+  }
+
+  private int tag() {
+    return in.get() & 0xff;
+  }
+
+  private int line() throws IOException {
+    line += unzigzag(varint());
+    return line;
+  }
+
+  private String string() throws IOException {
+    int index = varint();
+    if (index > 0) {
+      return strings.get(index - 1);
+    }
+
+    byte[] bytes = new byte[varint()];
+    in.get(bytes);
+
+    String s = new String(bytes, StandardCharsets.UTF_8);
+    strings.add(s);
+    return s;
+  }
+
+  private int varint() throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      int b = tag();
+      value |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+
+    throw new IOException("Invalid varint");
+  }
+
+  private static int unzigzag(int value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+}
@@ -0,0 +1,228 @@
+package interpreter.cache;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import interpreter.command.AssignCommand;
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.command.DeclarationType1Command;
+import interpreter.command.DeclarationType2Command;
+import interpreter.command.ForCommand;
+import interpreter.command.ForeachCommand;
+import interpreter.command.IfCommand;
+import interpreter.command.PrintCommand;
+import interpreter.command.WhileCommand;
+import interpreter.expr.AccessExpr;
+import interpreter.expr.ArrayExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.CaseItem;
+import interpreter.expr.CastExpr;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.MapExpr;
+import interpreter.expr.MapItem;
+import interpreter.expr.SwitchExpr;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.Variable;
+import interpreter.value.BooleanValue;
+import interpreter.value.NumberValue;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+
+// Serializa a árvore em pré-ordem: cada nó é um marcador, a linha e os
+// filhos; enums são gravados pelo ordinal. Inteiros usam varint, a linha
+// é gravada como diferença para a do nó anterior e cada string aparece
+// uma única vez, sendo depois referenciada pelo índice.
+public class AstWriter {
+
+  private DataOutputStream out;
+  private int line;
+  private Map<String, Integer> strings;
+
+  public AstWriter(DataOutputStream out) {
+    this.out = out;
+    this.line = 0;
+    this.strings = new HashMap<String, Integer>();
+  }
+
+  public void command(Command cmd) throws IOException {
+    if (cmd == null) {
+      out.writeByte(Tag.NULL);
+    } else if (cmd instanceof BlocksCommand) {
+      List<Command> cmds = ((BlocksCommand) cmd).getCommands();
+      header(Tag.BLOCKS, cmd.getLine());
+      varint(cmds.size());
+      for (Command c : cmds) {
+        command(c);
+      }
+    } else if (cmd instanceof AssignCommand) {
+      AssignCommand ac = (AssignCommand) cmd;
+      header(Tag.ASSIGN, ac.getLine());
+      out.writeByte(ac.getOp().ordinal());
+      expr(ac.getLhs());
+      expr(ac.getRhs());
+    } else if (cmd instanceof DeclarationType1Command) {
+      DeclarationType1Command dc = (DeclarationType1Command) cmd;
+      header(Tag.DECLARATION_TYPE1, dc.getLine());
+      expr(dc.getLhs());
+      expr(dc.getRhs());
+    } else if (cmd instanceof DeclarationType2Command) {
+      DeclarationType2Command dc = (DeclarationType2Command) cmd;
+      header(Tag.DECLARATION_TYPE2, dc.getLine());
+      varint(dc.getLhs().size());
+      for (Variable var : dc.getLhs()) {
+        expr(var);
+      }
+      expr(dc.getRhs());
+    } else if (cmd instanceof PrintCommand) {
+      PrintCommand pc = (PrintCommand) cmd;
+      header(Tag.PRINT, pc.getLine());
+      out.writeBoolean(pc.isNewline());
+      expr(pc.getExpr());
+    } else if (cmd instanceof IfCommand) {
+      IfCommand ic = (IfCommand) cmd;
+      header(Tag.IF, ic.getLine());
+      expr(ic.getExpr());
+      command(ic.getThenCommands());
+      command(ic.getElseCommands());
+    } else if (cmd instanceof WhileCommand) {
+      WhileCommand wc = (WhileCommand) cmd;
+      header(Tag.WHILE, wc.getLine());
+      expr(wc.getExpr());
+      command(wc.getCommands());
+    } else if (cmd instanceof ForCommand) {
+      ForCommand fc = (ForCommand) cmd;
+      header(Tag.FOR, fc.getLine());
+      command(fc.getInit());
+      expr(fc.getCond());
+      command(fc.getInc());
+      command(fc.getCommands());
+    } else if (cmd instanceof ForeachCommand) {
+      ForeachCommand fc = (ForeachCommand) cmd;
+      header(Tag.FOREACH, fc.getLine());
+      expr(fc.getVariable());
+      expr(fc.getExpr());
+      command(fc.getCommands());
+    } else {
+      throw new IOException("Unsupported command " + cmd.getClass().getSimpleName());
+    }
+  }
+
+  public void expr(Expr expr) throws IOException {
+    if (expr == null) {
+      out.writeByte(Tag.NULL);
+    } else if (expr instanceof Variable) {
+      header(Tag.VARIABLE, expr.getLine());
+      string(((Variable) expr).getName());
+    } else if (expr instanceof AccessExpr) {
+      AccessExpr ae = (AccessExpr) expr;
+      header(Tag.ACCESS, ae.getLine());
+      expr(ae.getBase());
+      expr(ae.getIndex());
+    } else if (expr instanceof ConstExpr) {
+      header(Tag.CONST, expr.getLine());
+      value(((ConstExpr) expr).getValue());
+    } else if (expr instanceof UnaryExpr) {
+      UnaryExpr ue = (UnaryExpr) expr;
+      header(Tag.UNARY, ue.getLine());
+      out.writeByte(ue.getOp().ordinal());
+      expr(ue.getExpr());
+    } else if (expr instanceof BinaryExpr) {
+      BinaryExpr be = (BinaryExpr) expr;
+      header(Tag.BINARY, be.getLine());
+      out.writeByte(be.getOp().ordinal());
+      expr(be.getLeft());
+      expr(be.getRight());
+    } else if (expr instanceof CastExpr) {
+      CastExpr ce = (CastExpr) expr;
+      header(Tag.CAST, ce.getLine());
+      out.writeByte(ce.getOp().ordinal());
+      expr(ce.getExpr());
+    } else if (expr instanceof ArrayExpr) {
+      List<Expr> items = ((ArrayExpr) expr).getItems();
+      header(Tag.ARRAY, expr.getLine());
+      varint(items.size());
+      for (Expr item : items) {
+        expr(item);
+      }
+    } else if (expr instanceof MapExpr) {
+      List<MapItem> items = ((MapExpr) expr).getItems();
+      header(Tag.MAP, expr.getLine());
+      varint(items.size());
+      for (MapItem item : items) {
+        string(item.key);
+        expr(item.value);
+      }
+    } else if (expr instanceof SwitchExpr) {
+      SwitchExpr se = (SwitchExpr) expr;
+      header(Tag.SWITCH, se.getLine());
+      expr(se.getExpr());
+      varint(se.getCases().size());
+      for (CaseItem item : se.getCases()) {
+        expr(item.key);
+        expr(item.value);
+      }
+      expr(se.getDefault());
+    } else {
+      throw new IOException("Unsupported expression " + expr.getClass().getSimpleName());
+    }
+  }
+
+  private void value(Value<?> value) throws IOException {
+    if (value == null) {
+      out.writeByte(Tag.NULL);
+    } else if (value instanceof BooleanValue) {
+      out.writeByte(Tag.BOOLEAN);
+      out.writeBoolean(((BooleanValue) value).value());
+    } else if (value instanceof NumberValue) {
+      out.writeByte(Tag.NUMBER);
+      varint(zigzag(((NumberValue) value).intValue()));
+    } else if (value instanceof TextValue) {
+      out.writeByte(Tag.TEXT);
+      string(((TextValue) value).value());
+    } else {
+      throw new IOException("Unsupported constant " + value.getClass().getSimpleName());
+    }
+  }
+
+  private void header(int tag, int line) throws IOException {
+    out.writeByte(tag);
+    varint(zigzag(line - this.line));
+    this.line = line;
+  }
+
+  // 0 seguido dos bytes em UTF-8 para uma string nova, ou o índice + 1 de
+  // uma string já gravada.
+  private void string(String s) throws IOException {
+    Integer index = strings.get(s);
+    if (index != null) {
+      varint(index + 1);
+      return;
+    }
+
+    strings.put(s, strings.size());
+
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    varint(0);
+    varint(bytes.length);
+    out.write(bytes);
+  }
+
+  private void varint(int value) throws IOException {
+    while ((value & ~0x7f) != 0) {
+      out.writeByte((value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  private static int zigzag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+}
@@ -0,0 +1,38 @@
+package interpreter.cache;
+
+// Marcadores que identificam cada nó no arquivo .mgic.
+public class Tag {
+
+  private Tag() {
+  }
+
+  public static final int NULL = 0;
+
+  // Comandos
+  public static final int BLOCKS = 1;
+  public static final int ASSIGN = 2;
+  public static final int DECLARATION_TYPE1 = 3;
+  public static final int DECLARATION_TYPE2 = 4;
+  public static final int PRINT = 5;
+  public static final int IF = 6;
+  public static final int WHILE = 7;
+  public static final int FOR = 8;
+  public static final int FOREACH = 9;
+
+  // Expressões
+  public static final int VARIABLE = 10;
+  public static final int ACCESS = 11;
+  public static final int CONST = 12;
+  public static final int UNARY = 13;
+  public static final int BINARY = 14;
+  public static final int CAST = 15;
+  public static final int ARRAY = 16;
+  public static final int MAP = 17;
+  public static final int SWITCH = 18;
+
+  // Constantes
+  public static final int BOOLEAN = 20;
+  public static final int NUMBER = 21;
+  public static final int TEXT = 22;
+
+}
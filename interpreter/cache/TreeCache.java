@@ -0,0 +1,78 @@
+package interpreter.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import interpreter.command.Command;
+
+// Árvores já analisadas, otimizadas e com as variáveis resolvidas, mantidas
+// em memória pelo daemon entre uma execução e outra. Como no .mgic, uma
+// entrada só vale enquanto o fonte tiver o mesmo tamanho e os mesmos
+// checksums. A chave inclui a variante (com ou sem otimizador, slots ou
+// mapa), pois cada uma produz uma árvore diferente. As entradas usadas há
+// mais tempo são descartadas passando de MAX_ENTRIES.
+public class TreeCache {
+
+  private static final int MAX_ENTRIES = 64;
+
+  public static class Entry {
+    private Command command;
+    private int frame;
+    private long size;
+    private long hash;
+
+    public Entry(Command command, int frame) {
+      this.command = command;
+      this.frame = frame;
+    }
+
+    public Command getCommand() {
+      return command;
+    }
+
+    public int getFrame() {
+      return frame;
+    }
+  }
+
+  private Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+
+  public synchronized Entry get(AstCache source, String variant) {
+    Entry entry = entries.get(key(source, variant));
+    if (entry == null) {
+      return null;
+    }
+
+    try {
+      if (entry.size == source.size() && entry.hash == source.hash()) {
+        return entry;
+      }
+    } catch (Exception e) {
+    }
+
+    entries.remove(key(source, variant));
+    return null;
+  }
+
+  // Se o fonte não puder ser lido, a árvore simplesmente não é guardada.
+  public synchronized void put(AstCache source, String variant, Entry entry) {
+    try {
+      entry.size = source.size();
+      entry.hash = source.hash();
+    } catch (Exception e) {
+      return;
+    }
+
+    entries.put(key(source, variant), entry);
+  }
+
+  private static String key(AstCache source, String variant) {
+    return source.source().toAbsolutePath().normalize() + "#" + variant;
+  }
+
+}
@@ -1,8 +1,9 @@
 package interpreter.command;
 
-import java.util.List;
-
+import interpreter.Interpreter;
 import interpreter.expr.Expr;
+import interpreter.expr.Location;
+import interpreter.expr.NotIntException;
 import interpreter.expr.SetExpr;
 import interpreter.util.Utils;
 import interpreter.value.ArrayValue;
@@ -10,6 +11,7 @@ import interpreter.value.MapValue;
 import interpreter.value.NumberValue;
 import interpreter.value.TextValue;
 import interpreter.value.Value;
+import interpreter.value.ValueFactory;
 
 public class AssignCommand extends Command {
 
@@ -23,9 +25,20 @@ public class AssignCommand extends Command {
     PowerOp;
   }
 
+  // Como em BinaryExpr, '+=' e '-=' se especializam nos tipos observados e
+  // voltam para o caso genérico quando a guarda de tipo falha.
+  private enum State {
+    Uninitialized,
+    Generic,
+    IntAdd,
+    IntSub,
+    TextAppend;
+  }
+
   private SetExpr lhs;
   private Op op;
   private Expr rhs;
+  private State state;
 
   public AssignCommand(int line, SetExpr lhs, Op op, Expr rhs) {
     super(line);
@@ -33,31 +46,126 @@ public class AssignCommand extends Command {
     this.lhs = lhs;
     this.op = op;
     this.rhs = rhs;
+    this.state = op == Op.AddOp || op == Op.SubOp ? State.Uninitialized : State.Generic;
+  }
+
+  public SetExpr getLhs() {
+    return lhs;
+  }
+
+  public Op getOp() {
+    return op;
+  }
+
+  public Expr getRhs() {
+    return rhs;
   }
 
   @Override
-  public void execute() {
-    switch (op) {
-      case StdOp:
-        stdOp();
+  public void execute(Interpreter in) {
+    switch (state) {
+      case IntAdd:
+      case IntSub:
+        intOp(in);
+        break;
+      case TextAppend: {
+        Location loc = lhs.locate(in);
+        Value<?> lvalue = loc.get(in);
+        Value<?> rvalue = rhs.expr(in);
+
+        if (lvalue instanceof TextValue && rvalue instanceof TextValue) {
+          loc.set(in, ((TextValue) lvalue).concat((TextValue) rvalue));
+        } else {
+          state = State.Generic;
+          compound(in, loc, lvalue, rvalue);
+        }
         break;
+      }
+      case Uninitialized: {
+        Location loc = lhs.locate(in);
+        Value<?> lvalue = loc.get(in);
+        Value<?> rvalue = rhs.expr(in);
+
+        specialize(lvalue, rvalue);
+        compound(in, loc, lvalue, rvalue);
+        break;
+      }
+      default:
+        generic(in);
+    }
+  }
+
+  // O lado direito é avaliado como int, sem criar o NumberValue
+  // intermediário; qualquer outro tipo desfaz a especialização.
+  private void intOp(Interpreter in) {
+    Location loc = lhs.locate(in);
+    Value<?> lvalue = loc.get(in);
+
+    if (lvalue instanceof NumberValue) {
+      int r;
+      try {
+        r = rhs.evalInt(in);
+      } catch (NotIntException e) {
+        state = State.Generic;
+        compound(in, loc, lvalue, e.getValue());
+        return;
+      }
+
+      int l = ((NumberValue) lvalue).intValue();
+      loc.set(in, ValueFactory.number(op == Op.AddOp ? l + r : l - r));
+    } else {
+      state = State.Generic;
+      compound(in, loc, lvalue, rhs.expr(in));
+    }
+  }
+
+  private void compound(Interpreter in, Location loc, Value<?> lvalue, Value<?> rvalue) {
+    if (op == Op.AddOp) {
+      addOp(in, loc, lvalue, rvalue);
+    } else {
+      subOp(in, loc, lvalue, rvalue);
+    }
+  }
+
+  private void specialize(Value<?> lvalue, Value<?> rvalue) {
+    if (lvalue instanceof NumberValue && rvalue instanceof NumberValue) {
+      state = op == Op.AddOp ? State.IntAdd : State.IntSub;
+    } else if (op == Op.AddOp && lvalue instanceof TextValue && rvalue instanceof TextValue) {
+      state = State.TextAppend;
+    } else {
+      state = State.Generic;
+    }
+  }
+
+  private void generic(Interpreter in) {
+    if (op == Op.StdOp) {
+      stdOp(in);
+      return;
+    }
+
+    // O lado esquerdo é resolvido uma vez só, para a leitura e a escrita.
+    Location loc = lhs.locate(in);
+    Value<?> lvalue = loc.get(in);
+    Value<?> rvalue = rhs.expr(in);
+
+    switch (op) {
       case AddOp:
-        addOp();
+        addOp(in, loc, lvalue, rvalue);
         break;
       case SubOp:
-        subOp();
+        subOp(in, loc, lvalue, rvalue);
         break;
       case MulOp:
-        mulOp();
+        mulOp(in, loc, lvalue, rvalue);
         break;
       case DivOp:
-        divOp();
+        divOp(in, loc, lvalue, rvalue);
         break;
       case ModOp:
-        modOp();
+        modOp(in, loc, lvalue, rvalue);
         break;
       case PowerOp:
-        powerOp();
+        powerOp(in, loc, lvalue, rvalue);
         break;
       default:
         Utils.abort(super.getLine());
@@ -65,131 +173,109 @@ public class AssignCommand extends Command {
     }
   }
 
-  private void stdOp() {
-    Value<?> rvalue = rhs.expr();
-    lhs.setValue(rvalue);
+  private void stdOp(Interpreter in) {
+    Value<?> rvalue = rhs.expr(in);
+    lhs.setValue(in, rvalue);
   }
 
-  private void addOp() {
-    Value<?> lvalue = lhs.expr();
-    Value<?> rvalue = rhs.expr();
-
+  private void addOp(Interpreter in, Location loc, Value<?> lvalue, Value<?> rvalue) {
     if (lvalue != null) {
       if (lvalue instanceof NumberValue) {
         NumberValue lnum = (NumberValue) lvalue;
         NumberValue rnum = (NumberValue) rvalue;
-        lhs.setValue(new NumberValue(lnum.value() + rnum.value()));
+        loc.set(in, ValueFactory.number(lnum.intValue() + rnum.intValue()));
       } else if (lvalue instanceof TextValue) {
         TextValue lstr = (TextValue) lvalue;
         TextValue rstr = (TextValue) rvalue;
-        lhs.setValue(new TextValue(lstr.value() + rstr.value()));
+        loc.set(in, lstr.concat(rstr));
       } else if (lvalue instanceof ArrayValue) {
         ArrayValue larr = (ArrayValue) lvalue;
         ArrayValue rarr = (ArrayValue) rvalue;
 
-        List<Value<?>> lvals = larr.value();
-        List<Value<?>> rvals = rarr.value();
-        lvals.addAll(rvals);
-
-        lhs.setValue(new ArrayValue(lvals));
+        loc.set(in, larr.concat(rarr));
       } else if (lvalue instanceof MapValue) {
         MapValue lmap = (MapValue) lvalue;
         MapValue rmap = (MapValue) rvalue;
 
         lmap.value().putAll(rmap.value());
 
-        lhs.setValue(lmap);
+        loc.set(in, lmap);
       } else {
         Utils.abort(super.getLine());
       }
     } else {
-      lhs.setValue(rvalue);
+      loc.set(in, rvalue);
     }
 
   }
 
-  private void subOp() {
-    Value<?> lvalue = lhs.expr();
-    Value<?> rvalue = rhs.expr();
-
+  private void subOp(Interpreter in, Location loc, Value<?> lvalue, Value<?> rvalue) {
     if (lvalue != null) {
       if (lvalue instanceof NumberValue) {
         NumberValue lnum = (NumberValue) lvalue;
         NumberValue rnum = (NumberValue) rvalue;
-        lhs.setValue(new NumberValue(lnum.value() - rnum.value()));
+        loc.set(in, ValueFactory.number(lnum.intValue() - rnum.intValue()));
       } else {
         Utils.abort(super.getLine());
       }
     } else {
-      lhs.setValue(rvalue);
+      loc.set(in, rvalue);
     }
   }
 
-  private void mulOp() {
-    Value<?> lvalue = lhs.expr();
-    Value<?> rvalue = rhs.expr();
-
+  private void mulOp(Interpreter in, Location loc, Value<?> lvalue, Value<?> rvalue) {
     if (lvalue != null) {
       if (lvalue instanceof NumberValue) {
         NumberValue lnum = (NumberValue) lvalue;
         NumberValue rnum = (NumberValue) rvalue;
-        lhs.setValue(new NumberValue(lnum.value() * rnum.value()));
+        loc.set(in, ValueFactory.number(lnum.intValue() * rnum.intValue()));
       } else {
         Utils.abort(super.getLine());
       }
     } else {
-      lhs.setValue(rvalue);
+      loc.set(in, rvalue);
     }
   }
 
-  private void divOp() {
-    Value<?> lvalue = lhs.expr();
-    Value<?> rvalue = rhs.expr();
-
+  private void divOp(Interpreter in, Location loc, Value<?> lvalue, Value<?> rvalue) {
     if (lvalue != null) {
       if (lvalue instanceof NumberValue) {
         NumberValue lnum = (NumberValue) lvalue;
         NumberValue rnum = (NumberValue) rvalue;
-        lhs.setValue(new NumberValue(lnum.value() / rnum.value()));
+        loc.set(in, ValueFactory.number(lnum.intValue() / rnum.intValue()));
       } else {
         Utils.abort(super.getLine());
       }
     } else {
-      lhs.setValue(rvalue);
+      loc.set(in, rvalue);
     }
   }
 
-  private void modOp() {
-    Value<?> lvalue = lhs.expr();
-    Value<?> rvalue = rhs.expr();
-
+  private void modOp(Interpreter in, Location loc, Value<?> lvalue, Value<?> rvalue) {
     if (lvalue != null) {
       if (lvalue instanceof NumberValue) {
         NumberValue lnum = (NumberValue) lvalue;
         NumberValue rnum = (NumberValue) rvalue;
-        lhs.setValue(new NumberValue(lnum.value() % rnum.value()));
+        loc.set(in, ValueFactory.number(lnum.intValue() % rnum.intValue()));
       } else {
         Utils.abort(super.getLine());
       }
     } else {
-      lhs.setValue(rvalue);
+      loc.set(in, rvalue);
     }
   }
 
-  private void powerOp() {
-    Value<?> lvalue = lhs.expr();
-    Value<?> rvalue = rhs.expr();
-
+  private void powerOp(Interpreter in, Location loc, Value<?> lvalue, Value<?> rvalue) {
     if (lvalue != null) {
       if (lvalue instanceof NumberValue) {
         NumberValue lnum = (NumberValue) lvalue;
         NumberValue rnum = (NumberValue) rvalue;
-        lhs.setValue(new NumberValue((int) Math.pow(lnum.value(), rnum.value())));
+        loc.set(in, ValueFactory.number((int) Math.pow(lnum.intValue(), rnum.intValue())));
       } else {
         Utils.abort(super.getLine());
       }
     } else {
-      lhs.setValue(rvalue);
+      loc.set(in, rvalue);
     }
   }
 
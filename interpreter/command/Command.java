@@ -1,5 +1,7 @@
 package interpreter.command;
 
+import interpreter.Interpreter;
+
 public abstract class Command {
 
     private int line;
@@ -12,6 +14,6 @@ public abstract class Command {
         return line;
     }
 
-    public abstract void execute();
+    public abstract void execute(Interpreter in);
 
 }
@@ -1,5 +1,6 @@
 package interpreter.command;
 
+import interpreter.Interpreter;
 import interpreter.expr.Expr;
 
 public abstract class DeclarationCommand extends Command {
@@ -11,6 +12,10 @@ public abstract class DeclarationCommand extends Command {
     this.rhs = rhs;
   }
 
+  public Expr getRhs() {
+    return rhs;
+  }
+
   @Override
-  public abstract void execute();
+  public abstract void execute(Interpreter in);
 }
@@ -1,5 +1,6 @@
 package interpreter.command;
 
+import interpreter.Interpreter;
 import interpreter.expr.Expr;
 import interpreter.expr.Variable;
 import interpreter.value.Value;
@@ -14,9 +15,13 @@ public class DeclarationType1Command extends DeclarationCommand {
     this.lhs = lhs;
   }
 
+  public Variable getLhs() {
+    return lhs;
+  }
+
   @Override
-  public void execute() {
-    Value<?> value = (rhs != null ? rhs.expr() : null);
-    lhs.setValue(value);
+  public void execute(Interpreter in) {
+    Value<?> value = (rhs != null ? rhs.expr(in) : null);
+    lhs.setValue(in, value);
   }
 }
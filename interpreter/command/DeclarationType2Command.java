@@ -2,6 +2,7 @@ package interpreter.command;
 
 import java.util.List;
 
+import interpreter.Interpreter;
 import interpreter.expr.Expr;
 import interpreter.expr.Variable;
 import interpreter.util.Utils;
@@ -18,9 +19,13 @@ public class DeclarationType2Command extends DeclarationCommand {
     this.lhs = lhs;
   }
 
+  public List<Variable> getLhs() {
+    return lhs;
+  }
+
   @Override
-  public void execute() {
-    Value<?> value = rhs.expr();
+  public void execute(Interpreter in) {
+    Value<?> value = rhs.expr(in);
 
     try {
       ArrayValue arrayValue = (ArrayValue) value;
@@ -28,10 +33,10 @@ public class DeclarationType2Command extends DeclarationCommand {
       int i = 0;
 
       for (Variable variable : lhs) {
-        if (!(i >= arrayValue.value().size())) {
-          variable.setValue(arrayValue.value().get(i));
+        if (!(i >= arrayValue.size())) {
+          variable.setValue(in, arrayValue.get(i));
         } else {
-          variable.setValue(null);
+          variable.setValue(in, null);
         }
         i++;
       }
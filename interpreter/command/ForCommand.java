@@ -1,13 +1,43 @@
 package interpreter.command;
 
+import java.util.List;
+
+import interpreter.Interpreter;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.ConstExpr;
 import interpreter.expr.Expr;
+import interpreter.expr.Variable;
+import interpreter.value.NumberValue;
+import interpreter.value.Value;
+import interpreter.value.ValueFactory;
 
 public class ForCommand extends Command {
+
+  // Na primeira execução o laço é classificado. Um laço contado tem a
+  // forma 'i < e; i += k' (ou <=, >, >= e -=), com k constante, e nem o
+  // contador nem o limite são escritos no corpo ou no incremento; nesse
+  // caso o contador vive em um int e só é publicado na memória quando o
+  // corpo o lê, além do valor final ao sair do laço.
+  private enum Shape {
+    Unknown,
+    Generic,
+    Counted;
+  }
+
   private Command init;
   private Expr cond;
   private Command inc;
   private Command cmds;
 
+  // volatile: a árvore pode rodar em várias threads, e quem vê Counted
+  // precisa ver também os campos preenchidos por recognize().
+  private volatile Shape shape;
+  private Variable counter;
+  private Expr bound;
+  private BinaryExpr.Op test;
+  private int step;
+  private boolean publish;
+
   public ForCommand(int line, Command init, Expr cond, Command inc, Command cmds) {
     super(line);
 
@@ -15,20 +45,155 @@ public class ForCommand extends Command {
     this.cond = cond;
     this.inc = inc;
     this.cmds = cmds;
+    this.shape = Shape.Unknown;
+  }
+
+  public Command getInit() {
+    return init;
+  }
+
+  public Expr getCond() {
+    return cond;
+  }
+
+  public Command getInc() {
+    return inc;
+  }
+
+  public Command getCommands() {
+    return cmds;
   }
 
   @Override
-  public void execute() {
+  public void execute(Interpreter in) {
     if (init != null) {
-      init.execute();
+      init.execute(in);
     }
 
-    while (cond == null || cond.expr().eval()) {
-      cmds.execute();
+    if (shape == Shape.Unknown) {
+      shape = recognize() ? Shape.Counted : Shape.Generic;
+    }
+
+    // Se o contador ou o limite não forem números nesta execução, o laço
+    // genérico reproduz o comportamento (e os erros) originais.
+    if (shape == Shape.Counted && counted(in)) {
+      return;
+    }
+
+    while (cond == null || cond.expr(in).eval()) {
+      cmds.execute(in);
 
       if (inc != null) {
-        inc.execute();
+        inc.execute(in);
       }
+
+      in.backEdge();
+    }
+  }
+
+  private boolean counted(Interpreter in) {
+    Value<?> start = counter.expr(in);
+    Value<?> end = bound.expr(in);
+    if (!(start instanceof NumberValue) || !(end instanceof NumberValue)) {
+      return false;
     }
+
+    int i = ((NumberValue) start).intValue();
+    int e = ((NumberValue) end).intValue();
+
+    while (test(i, e)) {
+      if (publish) {
+        counter.setValue(in, ValueFactory.number(i));
+      }
+
+      cmds.execute(in);
+      i += step;
+      in.backEdge();
+    }
+
+    counter.setValue(in, ValueFactory.number(i));
+    return true;
   }
+
+  private boolean test(int i, int e) {
+    switch (test) {
+      case LowerThanOp:
+        return i < e;
+      case LowerEqualOp:
+        return i <= e;
+      case GreaterThanOp:
+        return i > e;
+      case GreaterEqualOp:
+      default:
+        return i >= e;
+    }
+  }
+
+  private boolean recognize() {
+    if (!(cond instanceof BinaryExpr)) {
+      return false;
+    }
+
+    BinaryExpr be = (BinaryExpr) cond;
+    switch (be.getOp()) {
+      case LowerThanOp:
+      case LowerEqualOp:
+      case GreaterThanOp:
+      case GreaterEqualOp:
+        break;
+      default:
+        return false;
+    }
+
+    if (!(be.getLeft() instanceof Variable)) {
+      return false;
+    }
+
+    Variable var = (Variable) be.getLeft();
+    Expr end = be.getRight();
+    if (!(end instanceof ConstExpr || end instanceof Variable)) {
+      return false;
+    }
+
+    Command c = inc;
+    if (c instanceof BlocksCommand) {
+      List<Command> list = ((BlocksCommand) c).getCommands();
+      c = list.size() == 1 ? list.get(0) : null;
+    }
+
+    if (!(c instanceof AssignCommand)) {
+      return false;
+    }
+
+    AssignCommand ac = (AssignCommand) c;
+    if (!(ac.getLhs() instanceof Variable) ||
+        !((Variable) ac.getLhs()).getName().equals(var.getName()) ||
+        (ac.getOp() != AssignCommand.Op.AddOp && ac.getOp() != AssignCommand.Op.SubOp) ||
+        !(ac.getRhs() instanceof ConstExpr) ||
+        !(((ConstExpr) ac.getRhs()).getValue() instanceof NumberValue)) {
+      return false;
+    }
+
+    int k = ((NumberValue) ((ConstExpr) ac.getRhs()).getValue()).intValue();
+
+    VariableUsage usage = new VariableUsage(cmds);
+    if (usage.writes(var.getName())) {
+      return false;
+    }
+
+    if (end instanceof Variable) {
+      String name = ((Variable) end).getName();
+      if (name.equals(var.getName()) || usage.writes(name)) {
+        return false;
+      }
+    }
+
+    counter = var;
+    bound = end;
+    test = be.getOp();
+    step = ac.getOp() == AssignCommand.Op.AddOp ? k : -k;
+    publish = usage.reads(var.getName());
+    return true;
+  }
+
 }
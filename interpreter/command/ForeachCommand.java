@@ -1,5 +1,6 @@
 package interpreter.command;
 
+import interpreter.Interpreter;
 import interpreter.expr.Expr;
 import interpreter.expr.Variable;
 import interpreter.util.Utils;
@@ -19,16 +20,29 @@ public class ForeachCommand extends Command {
     this.cmds = cmds;
   }
 
+  public Variable getVariable() {
+    return var;
+  }
+
+  public Expr getExpr() {
+    return expr;
+  }
+
+  public Command getCommands() {
+    return cmds;
+  }
+
   @Override
-  public void execute() {
-    Value<?> value = expr.expr();
+  public void execute(Interpreter in) {
+    Value<?> value = expr.expr(in);
 
     if (value instanceof ArrayValue) {
       ArrayValue array = (ArrayValue) value;
 
       array.value().forEach((val) -> {
-        var.setValue(val);
-        cmds.execute();
+        var.setValue(in, val);
+        cmds.execute(in);
+        in.backEdge();
       });
     } else {
       Utils.abort(super.getLine());
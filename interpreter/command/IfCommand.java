@@ -1,5 +1,6 @@
 package interpreter.command;
 
+import interpreter.Interpreter;
 import interpreter.expr.Expr;
 import interpreter.value.Value;
 
@@ -19,14 +20,26 @@ public class IfCommand extends Command {
     this.elseCmds = elseCmds;
   }
 
+  public Expr getExpr() {
+    return expr;
+  }
+
+  public Command getThenCommands() {
+    return thenCmds;
+  }
+
+  public Command getElseCommands() {
+    return elseCmds;
+  }
+
   @Override
-  public void execute() {
-    Value<?> value = expr.expr();
+  public void execute(Interpreter in) {
+    Value<?> value = expr.expr(in);
 
     if (value.eval()) {
-      thenCmds.execute();
+      thenCmds.execute(in);
     } else if (elseCmds != null) {
-      elseCmds.execute();
+      elseCmds.execute(in);
     }
   }
 }
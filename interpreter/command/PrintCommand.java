@@ -1,5 +1,6 @@
 package interpreter.command;
 
+import interpreter.Interpreter;
 import interpreter.expr.Expr;
 import interpreter.value.Value;
 
@@ -14,14 +15,22 @@ public class PrintCommand extends Command {
     this.expr = expr;
   }
 
+  public boolean isNewline() {
+    return newline;
+  }
+
+  public Expr getExpr() {
+    return expr;
+  }
+
   @Override
-  public void execute() {
-    Value<?> value = expr.expr();
+  public void execute(Interpreter in) {
+    Value<?> value = expr.expr(in);
 
-    System.out.print(value == null ? "null" : value.toString());
+    in.getOutput().print(value == null ? "null" : value.toString());
 
     if (newline) {
-      System.out.println();
+      in.getOutput().println();
     }
   }
 }
@@ -0,0 +1,129 @@
+package interpreter.command;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import interpreter.expr.AccessExpr;
+import interpreter.expr.ArrayExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.CaseItem;
+import interpreter.expr.CastExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.MapExpr;
+import interpreter.expr.MapItem;
+import interpreter.expr.SetExpr;
+import interpreter.expr.SwitchExpr;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.Variable;
+
+// Levanta, por nome, quais variáveis um trecho da árvore lê e quais ele
+// pode escrever. Como o escopo é global e não há funções, uma variável só
+// muda se aparecer como alvo de uma atribuição, declaração ou foreach.
+class VariableUsage {
+
+  private Set<String> reads = new HashSet<String>();
+  private Set<String> writes = new HashSet<String>();
+
+  VariableUsage(Command cmd) {
+    command(cmd);
+  }
+
+  boolean reads(String name) {
+    return reads.contains(name);
+  }
+
+  boolean writes(String name) {
+    return writes.contains(name);
+  }
+
+  private void command(Command cmd) {
+    if (cmd instanceof BlocksCommand) {
+      for (Command c : ((BlocksCommand) cmd).getCommands()) {
+        command(c);
+      }
+    } else if (cmd instanceof AssignCommand) {
+      AssignCommand ac = (AssignCommand) cmd;
+      write(ac.getLhs());
+      expr(ac.getLhs());
+      expr(ac.getRhs());
+    } else if (cmd instanceof DeclarationType1Command) {
+      DeclarationType1Command dc = (DeclarationType1Command) cmd;
+      write(dc.getLhs());
+      expr(dc.getRhs());
+    } else if (cmd instanceof DeclarationType2Command) {
+      DeclarationType2Command dc = (DeclarationType2Command) cmd;
+      for (Variable var : dc.getLhs()) {
+        write(var);
+      }
+      expr(dc.getRhs());
+    } else if (cmd instanceof PrintCommand) {
+      expr(((PrintCommand) cmd).getExpr());
+    } else if (cmd instanceof IfCommand) {
+      IfCommand ic = (IfCommand) cmd;
+      expr(ic.getExpr());
+      command(ic.getThenCommands());
+      command(ic.getElseCommands());
+    } else if (cmd instanceof WhileCommand) {
+      WhileCommand wc = (WhileCommand) cmd;
+      expr(wc.getExpr());
+      command(wc.getCommands());
+    } else if (cmd instanceof ForCommand) {
+      ForCommand fc = (ForCommand) cmd;
+      command(fc.getInit());
+      expr(fc.getCond());
+      command(fc.getInc());
+      command(fc.getCommands());
+    } else if (cmd instanceof ForeachCommand) {
+      ForeachCommand fc = (ForeachCommand) cmd;
+      write(fc.getVariable());
+      expr(fc.getExpr());
+      command(fc.getCommands());
+    }
+  }
+
+  // O alvo de 'a[0] = x' ou 'a.k = x' é a variável na raiz do acesso.
+  private void write(SetExpr lhs) {
+    while (lhs instanceof AccessExpr) {
+      lhs = ((AccessExpr) lhs).getBase();
+    }
+
+    if (lhs instanceof Variable) {
+      writes.add(((Variable) lhs).getName());
+    }
+  }
+
+  private void expr(Expr expr) {
+    if (expr instanceof Variable) {
+      reads.add(((Variable) expr).getName());
+    } else if (expr instanceof AccessExpr) {
+      AccessExpr ae = (AccessExpr) expr;
+      expr(ae.getBase());
+      expr(ae.getIndex());
+    } else if (expr instanceof UnaryExpr) {
+      expr(((UnaryExpr) expr).getExpr());
+    } else if (expr instanceof BinaryExpr) {
+      BinaryExpr be = (BinaryExpr) expr;
+      expr(be.getLeft());
+      expr(be.getRight());
+    } else if (expr instanceof CastExpr) {
+      expr(((CastExpr) expr).getExpr());
+    } else if (expr instanceof ArrayExpr) {
+      for (Expr item : ((ArrayExpr) expr).getItems()) {
+        expr(item);
+      }
+    } else if (expr instanceof MapExpr) {
+      for (MapItem item : ((MapExpr) expr).getItems()) {
+        expr(item.value);
+      }
+    } else if (expr instanceof SwitchExpr) {
+      SwitchExpr se = (SwitchExpr) expr;
+      expr(se.getExpr());
+      for (CaseItem item : se.getCases()) {
+        expr(item.key);
+        expr(item.value);
+      }
+      expr(se.getDefault());
+    }
+  }
+
+}
@@ -1,5 +1,6 @@
 package interpreter.command;
 
+import interpreter.Interpreter;
 import interpreter.expr.Expr;
 import interpreter.value.Value;
 
@@ -15,14 +16,24 @@ public class WhileCommand extends Command {
     this.cmds = cmds;
   }
 
+  public Expr getExpr() {
+    return expr;
+  }
+
+  public Command getCommands() {
+    return cmds;
+  }
+
   @Override
-  public void execute() {
+  public void execute(Interpreter in) {
     do {
-      Value<?> value = expr.expr();
+      Value<?> value = expr.expr(in);
       if (value != null && value.eval())
-        cmds.execute();
+        cmds.execute(in);
       else
         break;
+
+      in.backEdge();
     } while (true);
   }
 
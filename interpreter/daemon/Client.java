@@ -0,0 +1,73 @@
+package interpreter.daemon;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+
+// Lado cliente de mgi --connect SOCKET: envia os argumentos, repassa a
+// entrada padrão enquanto o script roda e escreve a saída e os erros que
+// o daemon devolve.
+public class Client {
+
+  private Client() {
+  }
+
+  public static int run(Path socket, String[] args) throws IOException {
+    try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socket))) {
+      Frame.write(channel, Frame.ARGS, Daemon.encode(args));
+
+      // A leitura da entrada padrão pode bloquear para sempre se o script
+      // não a consumir; a thread é daemon para não segurar a saída.
+      Thread pump = new Thread(() -> pump(System.in, channel), "mgi-stdin");
+      pump.setDaemon(true);
+      pump.start();
+
+      WritableByteChannel out = Channels.newChannel(new FileOutputStream(FileDescriptor.out));
+      WritableByteChannel err = Channels.newChannel(new FileOutputStream(FileDescriptor.err));
+      while (true) {
+        Frame frame = Frame.read(channel);
+        switch (frame.type()) {
+          case Frame.STDOUT:
+            drain(out, frame.data());
+            break;
+          case Frame.STDERR:
+            drain(err, frame.data());
+            break;
+          case Frame.EXIT:
+            return frame.data().getInt();
+          default:
+            throw new IOException("Unexpected frame");
+        }
+      }
+    }
+  }
+
+  // Depois do EXIT o daemon fecha a conexão e a escrita falha; não há mais
+  // ninguém para ler a entrada.
+  private static void pump(InputStream in, SocketChannel channel) {
+    byte[] buffer = new byte[Frame.MAX_DATA];
+    try {
+      int n;
+      while ((n = in.read(buffer)) >= 0) {
+        Frame.write(channel, Frame.STDIN, ByteBuffer.wrap(buffer, 0, n));
+      }
+
+      Frame.write(channel, Frame.EOF, ByteBuffer.allocate(0));
+    } catch (IOException e) {
+    }
+  }
+
+  private static void drain(WritableByteChannel channel, ByteBuffer data) throws IOException {
+    while (data.hasRemaining()) {
+      channel.write(data);
+    }
+  }
+
+}
@@ -0,0 +1,120 @@
+package interpreter.daemon;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+
+import interpreter.ScriptExecutor;
+
+// Processo que fica no ar (mgi --daemon SOCKET) e executa os scripts
+// pedidos pelos clientes, de modo que a partida da JVM, o carregamento das
+// classes e o aquecimento do JIT são pagos uma vez só. Cada pedido roda em
+// um Interpreter próprio; o que é compartilhado entre pedidos são as
+// árvores já analisadas. Cada conexão aceita é atendida numa thread
+// própria, das mesmas do ScriptExecutor, e o laço do accept só recebe as
+// conexões: um script longo não atrasa os pedidos que chegam depois.
+public class Daemon {
+
+  // Executa um pedido como o mgi faria na linha de comando e devolve o
+  // código de saída.
+  public interface Runner {
+    int run(String[] args, WritableByteChannel out, PrintStream err, InputStream in);
+  }
+
+  private Path socket;
+  private Runner runner;
+  private final ExecutorService workers = ScriptExecutor.threads();
+
+  public Daemon(Path socket, Runner runner) {
+    this.socket = socket;
+    this.runner = runner;
+  }
+
+  // O arquivo do socket é removido ao sair, inclusive quando o daemon é
+  // encerrado por um sinal. Falhas que não são de um pedido só vão para a
+  // saída de erro do próprio daemon, que continua aceitando conexões.
+  public void serve() throws IOException {
+    Files.deleteIfExists(socket);
+    try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+      server.bind(UnixDomainSocketAddress.of(socket));
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        try {
+          Files.deleteIfExists(socket);
+        } catch (IOException e) {
+          report(e);
+        }
+      }));
+
+      while (true) {
+        SocketChannel channel;
+        try {
+          channel = server.accept();
+        } catch (IOException e) {
+          if (!server.isOpen()) {
+            throw e;
+          }
+
+          report(e);
+          continue;
+        }
+
+        workers.execute(() -> serve(channel));
+      }
+    } finally {
+      workers.shutdown();
+      Files.deleteIfExists(socket);
+    }
+  }
+
+  // Um cliente que desconecta no meio da execução só perde a própria
+  // resposta.
+  private void serve(SocketChannel channel) {
+    try (channel) {
+      handle(channel);
+    } catch (IOException e) {
+      report(e);
+    }
+  }
+
+  private static void report(IOException e) {
+    System.err.println("Internal error: " + e.getMessage());
+  }
+
+  private void handle(SocketChannel channel) throws IOException {
+    Frame frame = Frame.read(channel);
+    if (frame.type() != Frame.ARGS) {
+      return;
+    }
+
+    String[] args = decode(frame.data());
+    PrintStream err = new PrintStream(Channels.newOutputStream(new FrameOutput(channel, Frame.STDERR)), true);
+
+    int status = runner.run(args, new FrameOutput(channel, Frame.STDOUT), err, new FrameInput(channel));
+    err.flush();
+
+    Frame.write(channel, Frame.EXIT, ByteBuffer.allocate(4).putInt(0, status));
+  }
+
+  // Os argumentos vão separados por '\0', que não aparece em caminhos nem
+  // nas opções.
+  static ByteBuffer encode(String[] args) {
+    return ByteBuffer.wrap(String.join("\0", args).getBytes(StandardCharsets.UTF_8));
+  }
+
+  static String[] decode(ByteBuffer data) {
+    String joined = StandardCharsets.UTF_8.decode(data).toString();
+    return joined.isEmpty() ? new String[0] : joined.split("\0", -1);
+  }
+
+}
@@ -0,0 +1,82 @@
+package interpreter.daemon;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SocketChannel;
+
+// Protocolo entre o cliente e o daemon. Cada quadro é um byte de tipo, o
+// tamanho dos dados (int) e os dados. O cliente manda ARGS e depois a sua
+// entrada padrão em quadros STDIN, terminada por EOF; o daemon responde
+// com STDOUT e STDERR à medida que o script escreve e encerra com EXIT,
+// que leva o código de saída.
+final class Frame {
+
+  static final byte ARGS = 'A';
+  static final byte STDIN = 'I';
+  static final byte EOF = 'E';
+  static final byte STDOUT = 'O';
+  static final byte STDERR = 'R';
+  static final byte EXIT = 'X';
+
+  static final int MAX_DATA = 64 * 1024;
+
+  private byte type;
+  private ByteBuffer data;
+
+  private Frame(byte type, ByteBuffer data) {
+    this.type = type;
+    this.data = data;
+  }
+
+  byte type() {
+    return type;
+  }
+
+  ByteBuffer data() {
+    return data;
+  }
+
+  // Dados maiores que MAX_DATA são divididos em vários quadros.
+  static void write(SocketChannel channel, byte type, ByteBuffer data) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(5);
+    do {
+      int n = Math.min(data.remaining(), MAX_DATA);
+      ByteBuffer chunk = data.slice();
+      chunk.limit(n);
+
+      header.clear();
+      header.put(type).putInt(n).flip();
+
+      ByteBuffer[] buffers = { header, chunk };
+      while (header.hasRemaining() || chunk.hasRemaining()) {
+        channel.write(buffers);
+      }
+
+      data.position(data.position() + n);
+    } while (data.hasRemaining());
+  }
+
+  static Frame read(ReadableByteChannel channel) throws IOException {
+    ByteBuffer header = fill(channel, ByteBuffer.allocate(5));
+    byte type = header.get();
+    int n = header.getInt();
+    if (n < 0 || n > MAX_DATA) {
+      throw new IOException("Invalid frame");
+    }
+
+    return new Frame(type, fill(channel, ByteBuffer.allocate(n)));
+  }
+
+  private static ByteBuffer fill(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new EOFException();
+      }
+    }
+
+    return buffer.flip();
+  }
+
+}
@@ -0,0 +1,54 @@
+package interpreter.daemon;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+// Entrada padrão do cliente vista pelo script: os dados dos quadros STDIN,
+// até o quadro EOF. Só é lida quando o script chama read() (ou quando o
+// programa vem de "-"), então um script que não lê a entrada não espera
+// pelo cliente.
+class FrameInput extends InputStream {
+
+  private SocketChannel channel;
+  private ByteBuffer data = ByteBuffer.allocate(0);
+  private boolean eof;
+
+  FrameInput(SocketChannel channel) {
+    this.channel = channel;
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] b = new byte[1];
+    return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+
+    while (!data.hasRemaining()) {
+      if (eof) {
+        return -1;
+      }
+
+      Frame frame = Frame.read(channel);
+      if (frame.type() == Frame.EOF) {
+        eof = true;
+      } else if (frame.type() == Frame.STDIN) {
+        data = frame.data();
+      } else {
+        throw new IOException("Unexpected frame");
+      }
+    }
+
+    int n = Math.min(len, data.remaining());
+    data.get(b, off, n);
+    return n;
+  }
+
+}
@@ -0,0 +1,40 @@
+package interpreter.daemon;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+
+// Canal de saída que embrulha cada escrita em quadros de um tipo (STDOUT
+// ou STDERR). É o canal que o ChannelSink do script recebe no daemon.
+class FrameOutput implements WritableByteChannel {
+
+  private SocketChannel channel;
+  private byte type;
+
+  FrameOutput(SocketChannel channel, byte type) {
+    this.channel = channel;
+    this.type = type;
+  }
+
+  @Override
+  public int write(ByteBuffer src) throws IOException {
+    int n = src.remaining();
+    if (n > 0) {
+      Frame.write(channel, type, src);
+    }
+
+    return n;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return channel.isOpen();
+  }
+
+  // Quem fecha a conexão é o daemon, depois do EXIT.
+  @Override
+  public void close() {
+  }
+
+}
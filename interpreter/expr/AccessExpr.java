@@ -1,9 +1,11 @@
 package interpreter.expr;
 
+import interpreter.Interpreter;
 import interpreter.util.Utils;
 import interpreter.value.ArrayValue;
 import interpreter.value.MapValue;
 import interpreter.value.NumberValue;
+import interpreter.value.Shape;
 import interpreter.value.TextValue;
 import interpreter.value.Value;
 
@@ -11,29 +13,89 @@ public class AccessExpr extends SetExpr {
   private SetExpr base;
   private Expr index;
 
+  // Chave constante (m.campo ou m['campo']) e o cache monomórfico de
+  // formato: enquanto o mapa tiver o último formato visto, o valor é lido
+  // direto do slot, sem consultar a tabela de chaves.
+  private String key;
+  private Slot cached;
+
   public AccessExpr(int line, SetExpr base, Expr index) {
     super(line);
 
     this.base = base;
     this.index = index;
+
+    if (index instanceof ConstExpr && ((ConstExpr) index).getValue() instanceof TextValue) {
+      this.key = ((TextValue) ((ConstExpr) index).getValue()).value();
+    }
+  }
+
+  public SetExpr getBase() {
+    return base;
+  }
+
+  public Expr getIndex() {
+    return index;
   }
 
   @Override
-  public Value<?> expr() {
-    Value<?> baseValue = base.expr();
-    Value<?> indexValue = index.expr();
+  public Value<?> expr(Interpreter in) {
+    Value<?> baseValue = base.expr(in);
+
+    if (key != null && baseValue instanceof MapValue) {
+      MapValue map = (MapValue) baseValue;
+      Shape shape = map.shape();
+
+      if (shape == null) {
+        return map.get(key);
+      }
+
+      int slot = slot(shape);
+      return slot < 0 ? null : map.getSlot(slot);
+    }
+
+    return access(baseValue, index.expr(in));
+  }
+
+  // Em arrays guardados como int[], lê o elemento sem criar o NumberValue.
+  @Override
+  public int evalInt(Interpreter in) {
+    if (key != null) {
+      return super.evalInt(in);
+    }
+
+    Value<?> baseValue = base.expr(in);
+    Value<?> indexValue = index.expr(in);
+
+    if (baseValue instanceof ArrayValue && indexValue instanceof NumberValue) {
+      ArrayValue array = (ArrayValue) baseValue;
+      int i = ((NumberValue) indexValue).intValue();
 
+      if (array.holdsInts() && i >= 0 && i < array.size()) {
+        return array.getInt(i);
+      }
+    }
+
+    Value<?> value = access(baseValue, indexValue);
+    if (value instanceof NumberValue) {
+      return ((NumberValue) value).intValue();
+    }
+
+    throw new NotIntException(value);
+  }
+
+  private Value<?> access(Value<?> baseValue, Value<?> indexValue) {
     if (baseValue instanceof ArrayValue) {
       ArrayValue array = (ArrayValue) baseValue;
 
       if (indexValue instanceof NumberValue) {
-        int i = ((NumberValue) indexValue).value();
+        int i = ((NumberValue) indexValue).intValue();
 
-        if (i < 0 || i >= array.value().size()) {
+        if (i < 0 || i >= array.size()) {
           return null;
         }
 
-        return array.value().get(i);
+        return array.get(i);
       } else {
         Utils.abort(this.getLine());
         return null;
@@ -60,22 +122,149 @@ public class AccessExpr extends SetExpr {
   }
 
   @Override
-  public void setValue(Value<?> value) {
-    Value<?> indexValue = index.expr();
-    Value<?> baseValue = base.expr();
+  public void setValue(Interpreter in, Value<?> value) {
+    if (key != null) {
+      Value<?> baseValue = base.expr(in);
+
+      if (baseValue instanceof MapValue && ((MapValue) baseValue).shape() != null) {
+        MapValue map = (MapValue) baseValue;
+        int slot = slot(map.shape());
+
+        if (slot < 0) {
+          Utils.abort(this.getLine());
+          return;
+        }
+
+        map.setSlot(slot, value);
+      } else {
+        store(baseValue, index.expr(in), value);
+      }
+    } else {
+      Value<?> indexValue = index.expr(in);
+      store(base.expr(in), indexValue, value);
+    }
+  }
+
+  // Avalia base e índice uma vez; os erros de tipo são acusados aqui, como
+  // na leitura feita por expr().
+  @Override
+  public Location locate(Interpreter in) {
+    Value<?> baseValue = base.expr(in);
+    Value<?> indexValue = index.expr(in);
+
+    if (baseValue instanceof ArrayValue && indexValue instanceof NumberValue) {
+      return new ArrayLocation((ArrayValue) baseValue, ((NumberValue) indexValue).intValue());
+    } else if (baseValue instanceof MapValue && indexValue instanceof TextValue) {
+      return new MapLocation((MapValue) baseValue, ((TextValue) indexValue).value());
+    } else {
+      Utils.abort(this.getLine());
+      return null;
+    }
+  }
+
+  private static class Slot {
+    private final Shape shape;
+    private final int slot;
+
+    Slot(Shape shape, int slot) {
+      this.shape = shape;
+      this.slot = slot;
+    }
+  }
+
+  private class ArrayLocation implements Location {
+    private ArrayValue array;
+    private int index;
+
+    ArrayLocation(ArrayValue array, int index) {
+      this.array = array;
+      this.index = index;
+    }
+
+    @Override
+    public Value<?> get(Interpreter in) {
+      return index < 0 || index >= array.size() ? null : array.get(index);
+    }
+
+    @Override
+    public void set(Interpreter in, Value<?> value) {
+      if (index < 0 || index >= array.size()) {
+        Utils.abort(getLine());
+        return;
+      }
+
+      array.set(index, value);
+    }
+  }
+
+  private class MapLocation implements Location {
+    private MapValue map;
+    private String name;
+    private Shape shape;
+    private int slot;
+
+    MapLocation(MapValue map, String name) {
+      this.map = map;
+      this.name = name;
+      this.shape = map.shape();
+      this.slot = shape == null ? -1 : key != null ? slot(shape) : shape.slot(name);
+    }
+
+    @Override
+    public Value<?> get(Interpreter in) {
+      if (shape == null) {
+        return map.get(name);
+      }
+
+      return slot < 0 ? null : map.getSlot(slot);
+    }
+
+    // m.x += m pode mudar o formato de m entre a leitura e a escrita.
+    @Override
+    public void set(Interpreter in, Value<?> value) {
+      if (shape != null && shape == map.shape()) {
+        if (slot < 0) {
+          Utils.abort(getLine());
+          return;
+        }
+
+        map.setSlot(slot, value);
+      } else {
+        if (!map.value().containsKey(name)) {
+          Utils.abort(getLine());
+          return;
+        }
+
+        map.put(name, value);
+      }
+    }
+  }
+
+  // Formato e slot andam juntos num objeto imutável: uma árvore rodando em
+  // várias threads nunca combina o formato de uma com o slot de outra.
+  private int slot(Shape shape) {
+    Slot c = cached;
+    if (c == null || c.shape != shape) {
+      c = new Slot(shape, shape.slot(key));
+      cached = c;
+    }
+
+    return c.slot;
+  }
 
+  private void store(Value<?> baseValue, Value<?> indexValue, Value<?> value) {
     if (baseValue instanceof ArrayValue) {
       ArrayValue av = (ArrayValue) baseValue;
 
       if (indexValue instanceof NumberValue) {
-        int i = ((NumberValue) indexValue).value();
+        int i = ((NumberValue) indexValue).intValue();
 
-        if (i < 0 || i >= av.value().size()) {
+        if (i < 0 || i >= av.size()) {
           Utils.abort(this.getLine());
           return;
         }
 
-        av.value().set(i, value);
+        av.set(i, value);
       } else {
         Utils.abort(this.getLine());
         return;
@@ -3,7 +3,7 @@ package interpreter.expr;
 import java.util.ArrayList;
 import java.util.List;
 
-import interpreter.value.ArrayValue;
+import interpreter.Interpreter;
 import interpreter.value.Value;
 
 public class ArrayExpr extends Expr {
@@ -15,14 +15,18 @@ public class ArrayExpr extends Expr {
     this.array = array;
   }
 
+  public List<Expr> getItems() {
+    return array;
+  }
+
   @Override
-  public Value<?> expr() {
+  public Value<?> expr(Interpreter in) {
     List<Value<?>> values = new ArrayList<Value<?>>();
 
     for (Expr expr : array) {
-      values.add(expr.expr());
+      values.add(expr.expr(in));
     }
 
-    return new ArrayValue(values);
+    return in.newArray(values);
   }
 }
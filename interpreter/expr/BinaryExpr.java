@@ -4,13 +4,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import interpreter.Interpreter;
 import interpreter.util.Utils;
 import interpreter.value.ArrayValue;
-import interpreter.value.BooleanValue;
 import interpreter.value.MapValue;
 import interpreter.value.NumberValue;
 import interpreter.value.TextValue;
 import interpreter.value.Value;
+import interpreter.value.ValueFactory;
 
 public class BinaryExpr extends Expr {
 
@@ -33,9 +34,26 @@ public class BinaryExpr extends Expr {
     PowerOp;
   }
 
+  // Especialização do nó, reescrita no lugar conforme os tipos observados:
+  // começa não inicializada, é escolhida na primeira execução e volta para o
+  // caso genérico, de vez, quando a guarda de tipo falha. Os operadores que
+  // só aceitam números ficam sempre em IntArith.
+  private enum State {
+    Uninitialized,
+    Generic,
+    IntArith,
+    IntAdd,
+    TextConcat,
+    IntLowerThan,
+    IntLowerEqual,
+    IntGreaterThan,
+    IntGreaterEqual;
+  }
+
   private Expr left;
   private Expr right;
   private Op op;
+  private State state;
 
   public BinaryExpr(int line, Expr left, Op op, Expr right) {
     super(line);
@@ -43,60 +61,215 @@ public class BinaryExpr extends Expr {
     this.left = left;
     this.op = op;
     this.right = right;
+    this.state = op == Op.SubOp || op == Op.MulOp || op == Op.DivOp || op == Op.ModOp
+        || op == Op.PowerOp ? State.IntArith : State.Uninitialized;
+  }
+
+  public Expr getLeft() {
+    return left;
+  }
+
+  public Op getOp() {
+    return op;
+  }
+
+  public Expr getRight() {
+    return right;
   }
 
   @Override
-  public Value<?> expr() {
+  public Value<?> expr(Interpreter in) {
+    State s = state;
+    switch (s) {
+      case IntArith:
+        return ValueFactory.number(evalInt(in));
+      case IntAdd:
+      case IntLowerThan:
+      case IntLowerEqual:
+      case IntGreaterThan:
+      case IntGreaterEqual:
+        return intExpr(in, s);
+      case TextConcat: {
+        Value<?> lvalue = left.expr(in);
+        Value<?> rvalue = right.expr(in);
+
+        if (lvalue instanceof TextValue && rvalue instanceof TextValue) {
+          return ((TextValue) lvalue).concat((TextValue) rvalue);
+        }
+
+        return deoptimize(lvalue, rvalue);
+      }
+      case Uninitialized:
+        return specialize(left.expr(in), right.expr(in));
+      default:
+        return apply(left.expr(in), right.expr(in));
+    }
+  }
+
+  @Override
+  public int evalInt(Interpreter in) {
+    if (state != State.IntArith && state != State.IntAdd) {
+      return super.evalInt(in);
+    }
+
+    int l, r;
+    try {
+      l = left.evalInt(in);
+    } catch (NotIntException e) {
+      return unbox(deoptimize(e.getValue(), right.expr(in)));
+    }
+
+    try {
+      r = right.evalInt(in);
+    } catch (NotIntException e) {
+      return unbox(deoptimize(ValueFactory.number(l), e.getValue()));
+    }
+
+    switch (op) {
+      case AddOp:
+        return l + r;
+      case SubOp:
+        return l - r;
+      case MulOp:
+        return l * r;
+      case DivOp:
+        return l / r;
+      case ModOp:
+        return l % r;
+      default:
+        return (int) Math.pow(l, r);
+    }
+  }
+
+  // Avalia os dois lados como int, sem criar valores intermediários. Se um
+  // deles não for número, segue pelo caminho genérico com o que já obteve.
+  // O estado vem de quem chamou: outra thread rodando a mesma árvore pode
+  // tê-lo trocado no meio tempo.
+  private Value<?> intExpr(Interpreter in, State s) {
+    int l, r;
+    try {
+      l = left.evalInt(in);
+    } catch (NotIntException e) {
+      return deoptimize(e.getValue(), right.expr(in));
+    }
+
+    try {
+      r = right.evalInt(in);
+    } catch (NotIntException e) {
+      return deoptimize(ValueFactory.number(l), e.getValue());
+    }
+
+    switch (s) {
+      case IntAdd:
+        return ValueFactory.number(l + r);
+      case IntLowerThan:
+        return ValueFactory.bool(l < r);
+      case IntLowerEqual:
+        return ValueFactory.bool(l <= r);
+      case IntGreaterThan:
+        return ValueFactory.bool(l > r);
+      default:
+        return ValueFactory.bool(l >= r);
+    }
+  }
+
+  private Value<?> deoptimize(Value<?> lvalue, Value<?> rvalue) {
+    if (state != State.IntArith) {
+      state = State.Generic;
+    }
+
+    return apply(lvalue, rvalue);
+  }
+
+  private static int unbox(Value<?> value) {
+    if (value instanceof NumberValue) {
+      return ((NumberValue) value).intValue();
+    }
+
+    throw new NotIntException(value);
+  }
+
+  private Value<?> specialize(Value<?> lvalue, Value<?> rvalue) {
+    if (lvalue instanceof NumberValue && rvalue instanceof NumberValue) {
+      switch (op) {
+        case AddOp:
+          state = State.IntAdd;
+          break;
+        case LowerThanOp:
+          state = State.IntLowerThan;
+          break;
+        case LowerEqualOp:
+          state = State.IntLowerEqual;
+          break;
+        case GreaterThanOp:
+          state = State.IntGreaterThan;
+          break;
+        case GreaterEqualOp:
+          state = State.IntGreaterEqual;
+          break;
+        default:
+          state = State.Generic;
+      }
+    } else if (op == Op.AddOp && lvalue instanceof TextValue && rvalue instanceof TextValue) {
+      state = State.TextConcat;
+    } else {
+      state = State.Generic;
+    }
+
+    return apply(lvalue, rvalue);
+  }
+
+  private Value<?> apply(Value<?> lvalue, Value<?> rvalue) {
     Value<?> v = null;
 
     switch (op) {
       case AndOp:
-        v = andOp(left, right);
+        v = andOp(lvalue, rvalue);
         break;
       case OrOp:
-        v = orOp(left, right);
+        v = orOp(lvalue, rvalue);
         break;
       case EqualOp:
-        v = equalOp(left, right);
+        v = equalOp(lvalue, rvalue);
         break;
       case NotEqualOp:
-        v = notEqualOp(left, right);
+        v = notEqualOp(lvalue, rvalue);
         break;
       case LowerThanOp:
-        v = lowerThanOp(left, right);
+        v = lowerThanOp(lvalue, rvalue);
         break;
       case LowerEqualOp:
-        v = lowerEqualOp(left, right);
+        v = lowerEqualOp(lvalue, rvalue);
         break;
       case GreaterThanOp:
-        v = greaterThanOp(left, right);
+        v = greaterThanOp(lvalue, rvalue);
         break;
       case GreaterEqualOp:
-        v = greaterEqualOp(left, right);
+        v = greaterEqualOp(lvalue, rvalue);
         break;
       case ContainsOp:
-        v = containsOp(left, right);
+        v = containsOp(lvalue, rvalue);
         break;
       case NotContainsOp:
-        v = notContainsOp(left, right);
+        v = notContainsOp(lvalue, rvalue);
         break;
       case AddOp:
-        v = addOp(left, right);
+        v = addOp(lvalue, rvalue);
         break;
       case SubOp:
-        v = subOp(left, right);
+        v = subOp(lvalue, rvalue);
         break;
       case MulOp:
-        v = mulOp(left, right);
+        v = mulOp(lvalue, rvalue);
         break;
       case DivOp:
-        v = divOp(left, right);
+        v = divOp(lvalue, rvalue);
         break;
       case ModOp:
-        v = modOp(left, right);
+        v = modOp(lvalue, rvalue);
         break;
       case PowerOp:
-        v = powerOp(left, right);
+        v = powerOp(lvalue, rvalue);
         break;
 
       default:
@@ -106,51 +279,41 @@ public class BinaryExpr extends Expr {
     return v;
   }
 
-  public Value<?> andOp(Expr left, Expr right) {
-    Value<?> lvalue = left.expr();
-    Value<?> rvalue = right.expr();
-
+  public Value<?> andOp(Value<?> lvalue, Value<?> rvalue) {
     if (lvalue.eval() && rvalue.eval()) {
-      return new BooleanValue(true);
+      return ValueFactory.bool(true);
     } else {
-      return new BooleanValue(false);
+      return ValueFactory.bool(false);
     }
   }
 
-  public Value<?> orOp(Expr left, Expr right) {
-    Value<?> lvalue = left.expr();
-    Value<?> rvalue = right.expr();
-
+  public Value<?> orOp(Value<?> lvalue, Value<?> rvalue) {
     if (lvalue.eval() || rvalue.eval()) {
-      return new BooleanValue(true);
+      return ValueFactory.bool(true);
     } else {
-      return new BooleanValue(false);
+      return ValueFactory.bool(false);
     }
   }
 
-  public Value<?> equalOp(Expr left, Expr right) {
-    Value<?> lvalue = left.expr();
-    Value<?> rvalue = right.expr();
-
-    if (lvalue != null && rvalue != null) {
+  public Value<?> equalOp(Value<?> lvalue, Value<?> rvalue) {
+    if (lvalue instanceof NumberValue && rvalue instanceof NumberValue) {
+      return ValueFactory.bool(((NumberValue) lvalue).intValue() == ((NumberValue) rvalue).intValue());
+    } else if (lvalue != null && rvalue != null) {
       if (lvalue.value().equals(rvalue.value())) {
-        return new BooleanValue(true);
+        return ValueFactory.bool(true);
       } else {
-        return new BooleanValue(false);
+        return ValueFactory.bool(false);
       }
     } else {
-      return new BooleanValue(lvalue == rvalue);
+      return ValueFactory.bool(lvalue == rvalue);
     }
   }
 
-  public Value<?> notEqualOp(Expr left, Expr right) {
-    return new BooleanValue(!equalOp(left, right).eval());
+  public Value<?> notEqualOp(Value<?> lvalue, Value<?> rvalue) {
+    return ValueFactory.bool(!equalOp(lvalue, rvalue).eval());
   }
 
-  public Value<?> lowerThanOp(Expr left, Expr right) {
-    Value<?> lvalue = left.expr();
-    Value<?> rvalue = right.expr();
-
+  public Value<?> lowerThanOp(Value<?> lvalue, Value<?> rvalue) {
     if (!(lvalue instanceof NumberValue) || !(rvalue instanceof NumberValue)) {
       Utils.abort(super.getLine());
       return null;
@@ -159,17 +322,14 @@ public class BinaryExpr extends Expr {
     NumberValue lnum = (NumberValue) lvalue;
     NumberValue rnum = (NumberValue) rvalue;
 
-    if (lnum.value() < rnum.value()) {
-      return new BooleanValue(true);
+    if (lnum.intValue() < rnum.intValue()) {
+      return ValueFactory.bool(true);
     } else {
-      return new BooleanValue(false);
+      return ValueFactory.bool(false);
     }
   }
 
-  public Value<?> lowerEqualOp(Expr left, Expr right) {
-    Value<?> lvalue = left.expr();
-    Value<?> rvalue = right.expr();
-
+  public Value<?> lowerEqualOp(Value<?> lvalue, Value<?> rvalue) {
     if (!(lvalue instanceof NumberValue) || !(rvalue instanceof NumberValue)) {
       Utils.abort(super.getLine());
       return null;
@@ -178,17 +338,14 @@ public class BinaryExpr extends Expr {
     NumberValue lnum = (NumberValue) lvalue;
     NumberValue rnum = (NumberValue) rvalue;
 
-    if (lnum.value() <= rnum.value()) {
-      return new BooleanValue(true);
+    if (lnum.intValue() <= rnum.intValue()) {
+      return ValueFactory.bool(true);
     } else {
-      return new BooleanValue(false);
+      return ValueFactory.bool(false);
     }
   }
 
-  public Value<?> greaterThanOp(Expr left, Expr right) {
-    Value<?> lvalue = left.expr();
-    Value<?> rvalue = right.expr();
-
+  public Value<?> greaterThanOp(Value<?> lvalue, Value<?> rvalue) {
     if (!(lvalue instanceof NumberValue) || !(rvalue instanceof NumberValue)) {
       Utils.abort(super.getLine());
       return null;
@@ -197,17 +354,14 @@ public class BinaryExpr extends Expr {
     NumberValue lnum = (NumberValue) lvalue;
     NumberValue rnum = (NumberValue) rvalue;
 
-    if (lnum.value() > rnum.value()) {
-      return new BooleanValue(true);
+    if (lnum.intValue() > rnum.intValue()) {
+      return ValueFactory.bool(true);
     } else {
-      return new BooleanValue(false);
+      return ValueFactory.bool(false);
     }
   }
 
-  public Value<?> greaterEqualOp(Expr left, Expr right) {
-    Value<?> lvalue = left.expr();
-    Value<?> rvalue = right.expr();
-
+  public Value<?> greaterEqualOp(Value<?> lvalue, Value<?> rvalue) {
     if (!(lvalue instanceof NumberValue) || !(rvalue instanceof NumberValue)) {
       Utils.abort(super.getLine());
       return null;
@@ -216,20 +370,23 @@ public class BinaryExpr extends Expr {
     NumberValue lnum = (NumberValue) lvalue;
     NumberValue rnum = (NumberValue) rvalue;
 
-    if (lnum.value() >= rnum.value()) {
-      return new BooleanValue(true);
+    if (lnum.intValue() >= rnum.intValue()) {
+      return ValueFactory.bool(true);
     } else {
-      return new BooleanValue(false);
+      return ValueFactory.bool(false);
     }
   }
 
-  public Value<?> containsOp(Expr left, Expr right) {
-    Value<?> lvalue = left.expr();
-    Value<?> rvalue = right.expr();
-
+  public Value<?> containsOp(Value<?> lvalue, Value<?> rvalue) {
     if (rvalue instanceof ArrayValue) {
       ArrayValue rarray = (ArrayValue) rvalue;
 
+      // Um int[] não guarda null nem valores de outro tipo.
+      if (rarray.holdsInts()) {
+        return ValueFactory.bool(lvalue instanceof NumberValue
+            && rarray.containsInt(((NumberValue) lvalue).intValue()));
+      }
+
       List<Value<?>> list = rarray.value();
       boolean b = false;
       for (Value<?> v : list) {
@@ -244,7 +401,7 @@ public class BinaryExpr extends Expr {
         }
       }
 
-      return new BooleanValue(b);
+      return ValueFactory.bool(b);
     } else if (rvalue instanceof MapValue) {
       MapValue rmap = (MapValue) rvalue;
 
@@ -252,25 +409,22 @@ public class BinaryExpr extends Expr {
 
       for (String key : map.keySet()) {
         if (lvalue != null && lvalue != null && key.equals(lvalue.toString())) {
-          return new BooleanValue(true);
+          return ValueFactory.bool(true);
         }
       }
 
-      return new BooleanValue(false);
+      return ValueFactory.bool(false);
     } else {
       Utils.abort(this.getLine());
       return null;
     }
   }
 
-  public Value<?> notContainsOp(Expr left, Expr right) {
-    return new BooleanValue(!containsOp(left, right).eval());
+  public Value<?> notContainsOp(Value<?> lvalue, Value<?> rvalue) {
+    return ValueFactory.bool(!containsOp(lvalue, rvalue).eval());
   }
 
-  public Value<?> addOp(Expr left, Expr right) {
-    Value<?> lvalue = left.expr();
-    Value<?> rvalue = right.expr();
-
+  public Value<?> addOp(Value<?> lvalue, Value<?> rvalue) {
     if (lvalue == null || rvalue == null) {
       Utils.abort(super.getLine());
       return null;
@@ -280,20 +434,17 @@ public class BinaryExpr extends Expr {
       TextValue lstr = (TextValue) lvalue;
       TextValue rstr = (TextValue) rvalue;
 
-      return new TextValue(lstr.value() + rstr.value());
+      return lstr.concat(rstr);
     } else if (lvalue instanceof NumberValue && rvalue instanceof NumberValue) {
       NumberValue lnum = (NumberValue) lvalue;
       NumberValue rnum = (NumberValue) rvalue;
 
-      return new NumberValue(lnum.value() + rnum.value());
+      return ValueFactory.number(lnum.intValue() + rnum.intValue());
     } else if (lvalue instanceof ArrayValue && rvalue instanceof ArrayValue) {
       ArrayValue larr = (ArrayValue) lvalue;
       ArrayValue rarr = (ArrayValue) rvalue;
 
-      List<Value<?>> tmp = larr.value();
-      tmp.addAll(rarr.value());
-
-      return new ArrayValue(tmp);
+      return larr.concat(rarr);
     } else if (lvalue instanceof MapValue && rvalue instanceof MapValue) {
       MapValue lmap = (MapValue) lvalue;
       MapValue rmap = (MapValue) rvalue;
@@ -309,97 +460,82 @@ public class BinaryExpr extends Expr {
 
   }
 
-  public Value<?> subOp(Expr left, Expr right) {
-    Value<?> lvalue = left.expr();
-    Value<?> rvalue = right.expr();
-
+  public Value<?> subOp(Value<?> lvalue, Value<?> rvalue) {
     if (!(lvalue instanceof NumberValue) || !(rvalue instanceof NumberValue)) {
       Utils.abort(super.getLine());
       return null;
     }
 
     NumberValue nvl = (NumberValue) lvalue;
-    int lv = nvl.value();
+    int lv = nvl.intValue();
     NumberValue nvr = (NumberValue) rvalue;
-    int rv = nvr.value();
+    int rv = nvr.intValue();
 
-    NumberValue res = new NumberValue(lv - rv);
+    NumberValue res = ValueFactory.number(lv - rv);
 
     return res;
   }
 
-  public Value<?> mulOp(Expr left, Expr right) {
-    Value<?> lvalue = left.expr();
-    Value<?> rvalue = right.expr();
-
+  public Value<?> mulOp(Value<?> lvalue, Value<?> rvalue) {
     if (!(lvalue instanceof NumberValue) || !(rvalue instanceof NumberValue)) {
       Utils.abort(super.getLine());
       return null;
     }
 
     NumberValue nvl = (NumberValue) lvalue;
-    int lv = nvl.value();
+    int lv = nvl.intValue();
     NumberValue nvr = (NumberValue) rvalue;
-    int rv = nvr.value();
+    int rv = nvr.intValue();
 
-    NumberValue res = new NumberValue(lv * rv);
+    NumberValue res = ValueFactory.number(lv * rv);
 
     return res;
   }
 
-  public Value<?> divOp(Expr left, Expr right) {
-    Value<?> lvalue = left.expr();
-    Value<?> rvalue = right.expr();
-
+  public Value<?> divOp(Value<?> lvalue, Value<?> rvalue) {
     if (!(lvalue instanceof NumberValue) || !(rvalue instanceof NumberValue)) {
       Utils.abort(super.getLine());
       return null;
     }
 
     NumberValue nvl = (NumberValue) lvalue;
-    int lv = nvl.value();
+    int lv = nvl.intValue();
     NumberValue nvr = (NumberValue) rvalue;
-    int rv = nvr.value();
+    int rv = nvr.intValue();
 
-    NumberValue res = new NumberValue(lv / rv);
+    NumberValue res = ValueFactory.number(lv / rv);
 
     return res;
   }
 
-  public Value<?> modOp(Expr left, Expr right) {
-    Value<?> lvalue = left.expr();
-    Value<?> rvalue = right.expr();
-
+  public Value<?> modOp(Value<?> lvalue, Value<?> rvalue) {
     if (!(lvalue instanceof NumberValue) || !(rvalue instanceof NumberValue)) {
       Utils.abort(super.getLine());
       return null;
     }
 
     NumberValue nvl = (NumberValue) lvalue;
-    int lv = nvl.value();
+    int lv = nvl.intValue();
     NumberValue nvr = (NumberValue) rvalue;
-    int rv = nvr.value();
+    int rv = nvr.intValue();
 
-    NumberValue res = new NumberValue(lv % rv);
+    NumberValue res = ValueFactory.number(lv % rv);
 
     return res;
   }
 
-  public Value<?> powerOp(Expr left, Expr right) {
-    Value<?> lvalue = left.expr();
-    Value<?> rvalue = right.expr();
-
+  public Value<?> powerOp(Value<?> lvalue, Value<?> rvalue) {
     if (!(lvalue instanceof NumberValue) || !(rvalue instanceof NumberValue)) {
       Utils.abort(super.getLine());
       return null;
     }
 
     NumberValue nvl = (NumberValue) lvalue;
-    int lv = nvl.value();
+    int lv = nvl.intValue();
     NumberValue nvr = (NumberValue) rvalue;
-    int rv = nvr.value();
+    int rv = nvr.intValue();
 
-    NumberValue res = new NumberValue((int) Math.pow(lv, rv));
+    NumberValue res = ValueFactory.number((int) Math.pow(lv, rv));
 
     return res;
   }
@@ -1,10 +1,12 @@
 package interpreter.expr;
 
+import interpreter.Interpreter;
 import interpreter.util.Utils;
 import interpreter.value.BooleanValue;
 import interpreter.value.NumberValue;
 import interpreter.value.TextValue;
 import interpreter.value.Value;
+import interpreter.value.ValueFactory;
 
 public class CastExpr extends Expr {
 
@@ -24,15 +26,23 @@ public class CastExpr extends Expr {
     this.op = op;
   }
 
+  public Expr getExpr() {
+    return expr;
+  }
+
+  public Op getOp() {
+    return op;
+  }
+
   @Override
-  public Value<?> expr() {
+  public Value<?> expr(Interpreter in) {
     switch (op) {
       case BooleanOp:
-        return booleanOp(expr);
+        return booleanOp(in, expr);
       case IntegerOp:
-        return integerOp(expr);
+        return integerOp(in, expr);
       case StringOp:
-        return stringOp(expr);
+        return stringOp(in, expr);
       default:
         Utils.abort(super.getLine());
     }
@@ -40,38 +50,48 @@ public class CastExpr extends Expr {
     return null;
   }
 
-  private Value<?> stringOp(Expr expr2) {
-    Value<?> v = expr2.expr();
+  @Override
+  public int evalInt(Interpreter in) {
+    if (op == Op.IntegerOp) {
+      return toInt(expr.expr(in));
+    }
+
+    return super.evalInt(in);
+  }
+
+  private Value<?> stringOp(Interpreter in, Expr expr2) {
+    Value<?> v = expr2.expr(in);
     return new TextValue(v.toString());
   }
 
-  private Value<?> integerOp(Expr expr2) {
-    Value<?> v = expr2.expr();
+  private Value<?> integerOp(Interpreter in, Expr expr2) {
+    return ValueFactory.number(toInt(expr2.expr(in)));
+  }
 
+  private int toInt(Value<?> v) {
     if (v instanceof NumberValue) {
-      return new NumberValue(((NumberValue) v).value());
+      return ((NumberValue) v).intValue();
     } else if (v instanceof TextValue) {
-      return new NumberValue(Integer.parseInt(((TextValue) v).value()));
+      return Integer.parseInt(((TextValue) v).value());
     } else if (v instanceof BooleanValue) {
-      return new NumberValue(((BooleanValue) v).value() ? 1 : 0);
+      return ((BooleanValue) v).value() ? 1 : 0;
     } else {
       Utils.abort(super.getLine());
-      return null;
+      return 0;
     }
-
   }
 
-  private Value<?> booleanOp(Expr expr2) {
-    Value<?> v = expr2.expr();
+  private Value<?> booleanOp(Interpreter in, Expr expr2) {
+    Value<?> v = expr2.expr(in);
 
     if (v instanceof NumberValue) {
-      return new BooleanValue(((NumberValue) v).value() != 0);
+      return ValueFactory.bool(((NumberValue) v).intValue() != 0);
     } else if (v instanceof TextValue) {
-      return new BooleanValue(!((TextValue) v).value().isEmpty());
+      return ValueFactory.bool(!((TextValue) v).value().isEmpty());
     } else if (v instanceof BooleanValue) {
       return v;
     } else if (v == null) {
-      return new BooleanValue(false);
+      return ValueFactory.bool(false);
     } else {
       Utils.abort(super.getLine());
       return null;
@@ -1,5 +1,7 @@
 package interpreter.expr;
 
+import interpreter.Interpreter;
+import interpreter.value.NumberValue;
 import interpreter.value.Value;
 
 public class ConstExpr extends Expr {
@@ -10,8 +12,21 @@ public class ConstExpr extends Expr {
     this.value = value;
   }
 
+  public Value<?> getValue() {
+    return value;
+  }
+
   @Override
-  public Value<?> expr() {
+  public Value<?> expr(Interpreter in) {
     return value;
   }
+
+  @Override
+  public int evalInt(Interpreter in) {
+    if (value instanceof NumberValue) {
+      return ((NumberValue) value).intValue();
+    }
+
+    throw new NotIntException(value);
+  }
 }
@@ -1,5 +1,7 @@
 package interpreter.expr;
 
+import interpreter.Interpreter;
+import interpreter.value.NumberValue;
 import interpreter.value.Value;
 
 public abstract class Expr {
@@ -14,6 +16,18 @@ public abstract class Expr {
         return line;
     }
 
-    public abstract Value<?> expr();
+    public abstract Value<?> expr(Interpreter in);
+
+    // Caminho rápido para expressões inteiras: devolve o int sem criar o
+    // NumberValue intermediário. Se o resultado não for um número, lança
+    // NotIntException com o valor obtido.
+    public int evalInt(Interpreter in) {
+        Value<?> value = expr(in);
+        if (value instanceof NumberValue) {
+            return ((NumberValue) value).intValue();
+        }
+
+        throw new NotIntException(value);
+    }
 
 }
@@ -0,0 +1,14 @@
+package interpreter.expr;
+
+import interpreter.Interpreter;
+import interpreter.value.Value;
+
+// Posição já resolvida por SetExpr.locate(): o contêiner e a chave foram
+// avaliados uma única vez, e a posição pode ser lida e depois escrita.
+public interface Location {
+
+  Value<?> get(Interpreter in);
+
+  void set(Interpreter in, Value<?> value);
+
+}
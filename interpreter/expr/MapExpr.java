@@ -1,10 +1,9 @@
 package interpreter.expr;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
+import interpreter.Interpreter;
 import interpreter.value.MapValue;
 import interpreter.value.Value;
 
@@ -19,15 +18,19 @@ public class MapExpr extends Expr {
     array.add(item);
   }
 
+  public List<MapItem> getItems() {
+    return array;
+  }
+
   @Override
-  public Value<?> expr() {
-    Map<String, Value<?>> map = new HashMap<String, Value<?>>();
+  public Value<?> expr(Interpreter in) {
+    MapValue map = new MapValue();
 
     for (MapItem item : array) {
-      map.put(item.key, item.value.expr());
+      map.put(item.key, item.value.expr(in));
     }
 
-    return new MapValue(map);
+    return map;
   }
 
 }
@@ -0,0 +1,21 @@
+package interpreter.expr;
+
+import interpreter.value.Value;
+
+// Lançada por evalInt() quando a expressão não resulta em um número. Leva o
+// valor já calculado, para que quem chamou siga pelo caminho genérico sem
+// avaliar a expressão de novo.
+public class NotIntException extends RuntimeException {
+
+    private final transient Value<?> value;
+
+    public NotIntException(Value<?> value) {
+        super(null, null, false, false);
+        this.value = value;
+    }
+
+    public Value<?> getValue() {
+        return value;
+    }
+
+}
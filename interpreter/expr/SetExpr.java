@@ -1,5 +1,6 @@
 package interpreter.expr;
 
+import interpreter.Interpreter;
 import interpreter.value.Value;
 
 public abstract class SetExpr extends Expr {
@@ -9,8 +10,12 @@ public abstract class SetExpr extends Expr {
   }
 
   @Override
-  public abstract Value<?> expr();
+  public abstract Value<?> expr(Interpreter in);
 
-  public abstract void setValue(Value<?> value);
+  public abstract void setValue(Interpreter in, Value<?> value);
+
+  // Usado pelas atribuições compostas, que leem e depois escrevem o mesmo
+  // lugar sem avaliar o lado esquerdo duas vezes.
+  public abstract Location locate(Interpreter in);
 
 }
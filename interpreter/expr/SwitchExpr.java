@@ -1,8 +1,14 @@
 package interpreter.expr;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import interpreter.Interpreter;
+import interpreter.value.BooleanValue;
+import interpreter.value.NumberValue;
+import interpreter.value.TextValue;
 import interpreter.value.Value;
 
 public class SwitchExpr extends Expr {
@@ -11,6 +17,20 @@ public class SwitchExpr extends Expr {
   private List<CaseItem> cases = new ArrayList<CaseItem>();
   private Expr defoult;
 
+  // Se todas as chaves forem constantes não nulas, a primeira execução
+  // monta uma tabela de dispersão valor -> expressão; senão, a busca
+  // continua linear, reavaliando as chaves em ordem.
+  private enum State {
+    Uninitialized,
+    Linear,
+    Table;
+  }
+
+  // volatile: com a árvore rodando em várias threads, quem vê Table
+  // precisa ver a tabela já montada.
+  private volatile State state = State.Uninitialized;
+  private Map<Value<?>, Expr> table;
+
   public SwitchExpr(int line, Expr expr) {
     super(line);
 
@@ -25,21 +45,63 @@ public class SwitchExpr extends Expr {
     this.defoult = defoult;
   }
 
+  public Expr getExpr() {
+    return expr;
+  }
+
+  public List<CaseItem> getCases() {
+    return cases;
+  }
+
+  public Expr getDefault() {
+    return defoult;
+  }
+
   @Override
-  public Value<?> expr() {
-    Value<?> value = expr.expr();
+  public Value<?> expr(Interpreter in) {
+    Value<?> value = expr.expr(in);
 
-    for (CaseItem item : cases) {
-      if (item.key.expr().equals(value)) {
-        return item.value.expr();
+    if (state == State.Uninitialized) {
+      specialize();
+    }
+
+    if (state == State.Table) {
+      // As chaves só podem ser iguais a números, textos ou booleanos; os
+      // demais valores nem precisam ser dispersados.
+      if (value instanceof NumberValue || value instanceof TextValue || value instanceof BooleanValue) {
+        Expr result = table.get(value);
+        if (result != null) {
+          return result.expr(in);
+        }
+      }
+    } else {
+      for (CaseItem item : cases) {
+        if (item.key.expr(in).equals(value)) {
+          return item.value.expr(in);
+        }
       }
     }
 
     if (defoult != null) {
-      return defoult.expr();
+      return defoult.expr(in);
     }
 
     return null;
   }
 
+  private void specialize() {
+    Map<Value<?>, Expr> map = new HashMap<Value<?>, Expr>();
+    for (CaseItem item : cases) {
+      if (!(item.key instanceof ConstExpr) || ((ConstExpr) item.key).getValue() == null) {
+        state = State.Linear;
+        return;
+      }
+
+      // Como na busca linear, vale o primeiro case com a mesma chave.
+      map.putIfAbsent(((ConstExpr) item.key).getValue(), item.value);
+    }
+
+    table = map;
+    state = State.Table;
+  }
 }
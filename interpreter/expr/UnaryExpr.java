@@ -2,15 +2,15 @@ package interpreter.expr;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Scanner;
 
+import interpreter.Interpreter;
 import interpreter.util.Utils;
 import interpreter.value.ArrayValue;
 import interpreter.value.BooleanValue;
 import interpreter.value.MapValue;
-import interpreter.value.NumberValue;
 import interpreter.value.TextValue;
 import interpreter.value.Value;
+import interpreter.value.ValueFactory;
 
 public class UnaryExpr extends Expr {
 
@@ -24,8 +24,6 @@ public class UnaryExpr extends Expr {
     ValuesOp;
   }
 
-  private Scanner scanner = new Scanner(System.in);
-
   private Expr expr;
   private Op op;
 
@@ -36,30 +34,38 @@ public class UnaryExpr extends Expr {
     this.op = op;
   }
 
+  public Expr getExpr() {
+    return expr;
+  }
+
+  public Op getOp() {
+    return op;
+  }
+
   @Override
-  public Value<?> expr() {
+  public Value<?> expr(Interpreter in) {
     Value<?> v = null;
     switch (op) {
       case NotOp:
-        v = notOp();
+        v = notOp(in);
         break;
       case NegOp:
-        v = negOp();
+        v = negOp(in);
         break;
       case ReadOp:
-        v = readOp();
+        v = readOp(in);
         break;
       case EmptyOp:
-        v = emptyOp();
+        v = emptyOp(in);
         break;
       case SizeOp:
-        v = sizeOp();
+        v = sizeOp(in);
         break;
       case KeysOp:
-        v = keysOp();
+        v = keysOp(in);
         break;
       case ValuesOp:
-        v = valuesOp();
+        v = valuesOp(in);
         break;
       default:
         Utils.abort(super.getLine());
@@ -68,36 +74,47 @@ public class UnaryExpr extends Expr {
     return v;
   }
 
-  private Value<?> notOp() {
-    Value<?> v = expr.expr();
+  @Override
+  public int evalInt(Interpreter in) {
+    if (op == Op.NegOp) {
+      return negInt(in);
+    }
+
+    return super.evalInt(in);
+  }
+
+  private Value<?> notOp(Interpreter in) {
+    Value<?> v = expr.expr(in);
     boolean b = v == null ? false : v.eval();
-    BooleanValue bv = new BooleanValue(!b);
+    BooleanValue bv = ValueFactory.bool(!b);
     return bv;
   }
 
-  private Value<?> negOp() {
-    Value<?> v = expr.expr();
-    if (!(v instanceof NumberValue))
-      Utils.abort(super.getLine());
-
-    NumberValue nv = (NumberValue) v;
-    int n = nv.value();
+  private Value<?> negOp(Interpreter in) {
+    return ValueFactory.number(negInt(in));
+  }
 
-    NumberValue res = new NumberValue(-n);
-    return res;
+  private int negInt(Interpreter in) {
+    try {
+      return -expr.evalInt(in);
+    } catch (NotIntException e) {
+      Utils.abort(super.getLine());
+      return 0;
+    }
   }
 
-  private Value<?> readOp() {
-    Value<?> v = expr.expr();
-    System.out.print(v == null ? "null" : v.toString());
+  private Value<?> readOp(Interpreter in) {
+    Value<?> v = expr.expr(in);
+    in.getOutput().print(v == null ? "null" : v.toString());
+    in.getOutput().flush();
 
-    String line = scanner.nextLine();
+    String line = in.getInput().readLine();
     TextValue tv = new TextValue(line);
     return tv;
   }
 
-  private Value<?> emptyOp() {
-    Value<?> v = expr.expr();
+  private Value<?> emptyOp(Interpreter in) {
+    Value<?> v = expr.expr(in);
 
     if (v == null) {
       Utils.abort(super.getLine());
@@ -106,13 +123,13 @@ public class UnaryExpr extends Expr {
 
     if (v instanceof TextValue) {
       TextValue tv = (TextValue) v;
-      return new BooleanValue(tv.value().isEmpty());
+      return ValueFactory.bool(tv.value().isEmpty());
     } else if (v instanceof ArrayValue) {
       ArrayValue av = (ArrayValue) v;
-      return new BooleanValue(av.value().size() == 0);
+      return ValueFactory.bool(av.size() == 0);
     } else if (v instanceof MapValue) {
       MapValue mv = (MapValue) v;
-      return new BooleanValue(mv.value().size() == 0);
+      return ValueFactory.bool(mv.value().size() == 0);
     } else {
       Utils.abort(super.getLine());
     }
@@ -120,8 +137,8 @@ public class UnaryExpr extends Expr {
     return null;
   }
 
-  private Value<?> sizeOp() {
-    Value<?> v = expr.expr();
+  private Value<?> sizeOp(Interpreter in) {
+    Value<?> v = expr.expr(in);
 
     if (v == null) {
       Utils.abort(super.getLine());
@@ -130,10 +147,10 @@ public class UnaryExpr extends Expr {
 
     if (v instanceof ArrayValue) {
       ArrayValue av = (ArrayValue) v;
-      return new NumberValue(av.value().size());
+      return ValueFactory.number(av.size());
     } else if (v instanceof MapValue) {
       MapValue mv = (MapValue) v;
-      return new NumberValue(mv.value().size());
+      return ValueFactory.number(mv.value().size());
     } else {
       Utils.abort(super.getLine());
     }
@@ -141,8 +158,8 @@ public class UnaryExpr extends Expr {
     return null;
   }
 
-  private Value<?> keysOp() {
-    Value<?> v = expr.expr();
+  private Value<?> keysOp(Interpreter in) {
+    Value<?> v = expr.expr(in);
 
     if (v == null) {
       Utils.abort(super.getLine());
@@ -156,7 +173,7 @@ public class UnaryExpr extends Expr {
         keys.add(new TextValue(key));
       }
 
-      return new ArrayValue(keys);
+      return in.newArray(keys);
     } else {
       Utils.abort(super.getLine());
     }
@@ -164,8 +181,8 @@ public class UnaryExpr extends Expr {
     return null;
   }
 
-  private Value<?> valuesOp() {
-    Value<?> v = expr.expr();
+  private Value<?> valuesOp(Interpreter in) {
+    Value<?> v = expr.expr(in);
 
     if (v == null) {
       Utils.abort(super.getLine());
@@ -179,7 +196,7 @@ public class UnaryExpr extends Expr {
         values.add(value);
       }
 
-      return new ArrayValue(values);
+      return in.newArray(values);
     } else {
       Utils.abort(super.getLine());
     }
@@ -1,10 +1,23 @@
 package interpreter.expr;
 
-import interpreter.util.Memory;
+import interpreter.Interpreter;
 import interpreter.value.Value;
 
 public class Variable extends SetExpr {
   private String name;
+  private int slot = -1;
+
+  private final Location location = new Location() {
+    @Override
+    public Value<?> get(Interpreter in) {
+      return expr(in);
+    }
+
+    @Override
+    public void set(Interpreter in, Value<?> value) {
+      setValue(in, value);
+    }
+  };
 
   public Variable(int line, String name) {
     super(line);
@@ -15,14 +28,31 @@ public class Variable extends SetExpr {
     return name;
   }
 
+  public int getSlot() {
+    return slot;
+  }
+
+  public void setSlot(int slot) {
+    this.slot = slot;
+  }
+
   @Override
-  public Value<?> expr() {
-    Value<?> value = Memory.read(name);
+  public Value<?> expr(Interpreter in) {
+    Value<?> value = slot < 0 ? in.getMemory().read(name) : in.getMemory().read(slot);
     return value;
   }
 
   @Override
-  public void setValue(Value<?> value) {
-    Memory.write(name, value);
+  public void setValue(Interpreter in, Value<?> value) {
+    if (slot < 0) {
+      in.getMemory().write(name, value);
+    } else {
+      in.getMemory().write(slot, value);
+    }
+  }
+
+  @Override
+  public Location locate(Interpreter in) {
+    return location;
   }
 }
@@ -0,0 +1,230 @@
+package interpreter.optimizer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import interpreter.command.AssignCommand;
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.command.DeclarationType1Command;
+import interpreter.command.DeclarationType2Command;
+import interpreter.command.ForCommand;
+import interpreter.command.ForeachCommand;
+import interpreter.command.IfCommand;
+import interpreter.command.PrintCommand;
+import interpreter.command.WhileCommand;
+import interpreter.expr.AccessExpr;
+import interpreter.expr.ArrayExpr;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.CaseItem;
+import interpreter.expr.CastExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.MapExpr;
+import interpreter.expr.MapItem;
+import interpreter.expr.SetExpr;
+import interpreter.expr.SwitchExpr;
+import interpreter.expr.UnaryExpr;
+
+// Percorre a árvore de baixo para cima. Um nó só é recriado quando algum
+// filho mudou; depois disso, rewrite() pode substituí-lo. As variáveis
+// nunca são recriadas, então os slots dados pelo Resolver continuam
+// valendo.
+public abstract class AstTransformer {
+
+  protected Command rewrite(Command cmd) {
+    return cmd;
+  }
+
+  protected Expr rewrite(Expr expr) {
+    return expr;
+  }
+
+  public Command command(Command cmd) {
+    if (cmd == null) {
+      return null;
+    } else if (cmd instanceof BlocksCommand) {
+      BlocksCommand bc = (BlocksCommand) cmd;
+      List<Command> cmds = commands(bc.getCommands());
+      if (cmds != bc.getCommands()) {
+        cmd = new BlocksCommand(bc.getLine(), cmds);
+      }
+    } else if (cmd instanceof AssignCommand) {
+      AssignCommand ac = (AssignCommand) cmd;
+      Expr lhs = expr(ac.getLhs());
+      Expr rhs = expr(ac.getRhs());
+      if (lhs != ac.getLhs() || rhs != ac.getRhs()) {
+        cmd = new AssignCommand(ac.getLine(), (SetExpr) lhs, ac.getOp(), rhs);
+      }
+    } else if (cmd instanceof DeclarationType1Command) {
+      DeclarationType1Command dc = (DeclarationType1Command) cmd;
+      Expr rhs = expr(dc.getRhs());
+      if (rhs != dc.getRhs()) {
+        cmd = new DeclarationType1Command(dc.getLine(), dc.getLhs(), rhs);
+      }
+    } else if (cmd instanceof DeclarationType2Command) {
+      DeclarationType2Command dc = (DeclarationType2Command) cmd;
+      Expr rhs = expr(dc.getRhs());
+      if (rhs != dc.getRhs()) {
+        cmd = new DeclarationType2Command(dc.getLine(), dc.getLhs(), rhs);
+      }
+    } else if (cmd instanceof PrintCommand) {
+      PrintCommand pc = (PrintCommand) cmd;
+      Expr expr = expr(pc.getExpr());
+      if (expr != pc.getExpr()) {
+        cmd = new PrintCommand(pc.getLine(), pc.isNewline(), expr);
+      }
+    } else if (cmd instanceof IfCommand) {
+      IfCommand ic = (IfCommand) cmd;
+      Expr expr = expr(ic.getExpr());
+      Command thenCmds = command(ic.getThenCommands());
+      Command elseCmds = command(ic.getElseCommands());
+      if (expr != ic.getExpr() || thenCmds != ic.getThenCommands() ||
+          elseCmds != ic.getElseCommands()) {
+        IfCommand nic = new IfCommand(ic.getLine(), expr, thenCmds);
+        if (elseCmds != null) {
+          nic.setElseCommands(elseCmds);
+        }
+        cmd = nic;
+      }
+    } else if (cmd instanceof WhileCommand) {
+      WhileCommand wc = (WhileCommand) cmd;
+      Expr expr = expr(wc.getExpr());
+      Command cmds = command(wc.getCommands());
+      if (expr != wc.getExpr() || cmds != wc.getCommands()) {
+        cmd = new WhileCommand(wc.getLine(), expr, cmds);
+      }
+    } else if (cmd instanceof ForCommand) {
+      ForCommand fc = (ForCommand) cmd;
+      Command init = command(fc.getInit());
+      Expr cond = expr(fc.getCond());
+      Command inc = command(fc.getInc());
+      Command cmds = command(fc.getCommands());
+      if (init != fc.getInit() || cond != fc.getCond() || inc != fc.getInc() ||
+          cmds != fc.getCommands()) {
+        cmd = new ForCommand(fc.getLine(), init, cond, inc, cmds);
+      }
+    } else if (cmd instanceof ForeachCommand) {
+      ForeachCommand fc = (ForeachCommand) cmd;
+      Expr expr = expr(fc.getExpr());
+      Command cmds = command(fc.getCommands());
+      if (expr != fc.getExpr() || cmds != fc.getCommands()) {
+        cmd = new ForeachCommand(fc.getLine(), fc.getVariable(), expr, cmds);
+      }
+    }
+
+    return rewrite(cmd);
+  }
+
+  public Expr expr(Expr expr) {
+    if (expr == null) {
+      return null;
+    } else if (expr instanceof AccessExpr) {
+      AccessExpr ae = (AccessExpr) expr;
+      Expr base = expr(ae.getBase());
+      Expr index = expr(ae.getIndex());
+      if (base != ae.getBase() || index != ae.getIndex()) {
+        expr = new AccessExpr(ae.getLine(), (SetExpr) base, index);
+      }
+    } else if (expr instanceof UnaryExpr) {
+      UnaryExpr ue = (UnaryExpr) expr;
+      Expr e = expr(ue.getExpr());
+      if (e != ue.getExpr()) {
+        expr = new UnaryExpr(ue.getLine(), e, ue.getOp());
+      }
+    } else if (expr instanceof BinaryExpr) {
+      BinaryExpr be = (BinaryExpr) expr;
+      Expr left = expr(be.getLeft());
+      Expr right = expr(be.getRight());
+      if (left != be.getLeft() || right != be.getRight()) {
+        expr = new BinaryExpr(be.getLine(), left, be.getOp(), right);
+      }
+    } else if (expr instanceof CastExpr) {
+      CastExpr ce = (CastExpr) expr;
+      Expr e = expr(ce.getExpr());
+      if (e != ce.getExpr()) {
+        expr = new CastExpr(ce.getLine(), e, ce.getOp());
+      }
+    } else if (expr instanceof ArrayExpr) {
+      ArrayExpr ae = (ArrayExpr) expr;
+      List<Expr> items = exprs(ae.getItems());
+      if (items != ae.getItems()) {
+        expr = new ArrayExpr(ae.getLine(), items);
+      }
+    } else if (expr instanceof MapExpr) {
+      MapExpr me = (MapExpr) expr;
+      boolean changed = false;
+      List<MapItem> items = new ArrayList<MapItem>();
+      for (MapItem item : me.getItems()) {
+        Expr value = expr(item.value);
+        changed |= value != item.value;
+        items.add(new MapItem(item.key, value));
+      }
+
+      if (changed) {
+        MapExpr nme = new MapExpr(me.getLine());
+        for (MapItem item : items) {
+          nme.addItem(item);
+        }
+        expr = nme;
+      }
+    } else if (expr instanceof SwitchExpr) {
+      SwitchExpr se = (SwitchExpr) expr;
+      Expr e = expr(se.getExpr());
+      boolean changed = e != se.getExpr();
+      List<CaseItem> cases = new ArrayList<CaseItem>();
+      for (CaseItem item : se.getCases()) {
+        Expr key = expr(item.key);
+        Expr value = expr(item.value);
+        changed |= key != item.key || value != item.value;
+        cases.add(new CaseItem(key, value));
+      }
+      Expr defoult = expr(se.getDefault());
+      changed |= defoult != se.getDefault();
+
+      if (changed) {
+        SwitchExpr nse = new SwitchExpr(se.getLine(), e);
+        for (CaseItem item : cases) {
+          nse.addCase(item);
+        }
+        if (defoult != null) {
+          nse.setDefault(defoult);
+        }
+        expr = nse;
+      }
+    }
+
+    return rewrite(expr);
+  }
+
+  // Devolve a própria lista quando nenhum comando mudou.
+  private List<Command> commands(List<Command> cmds) {
+    List<Command> result = null;
+    for (int i = 0; i < cmds.size(); i++) {
+      Command cmd = command(cmds.get(i));
+      if (result == null && cmd != cmds.get(i)) {
+        result = new ArrayList<Command>(cmds.subList(0, i));
+      }
+      if (result != null) {
+        result.add(cmd);
+      }
+    }
+
+    return result != null ? result : cmds;
+  }
+
+  private List<Expr> exprs(List<Expr> exprs) {
+    List<Expr> result = null;
+    for (int i = 0; i < exprs.size(); i++) {
+      Expr expr = expr(exprs.get(i));
+      if (result == null && expr != exprs.get(i)) {
+        result = new ArrayList<Expr>(exprs.subList(0, i));
+      }
+      if (result != null) {
+        result.add(expr);
+      }
+    }
+
+    return result != null ? result : exprs;
+  }
+
+}
@@ -0,0 +1,138 @@
+package interpreter.optimizer;
+
+import interpreter.Interpreter;
+import interpreter.expr.BinaryExpr;
+import interpreter.expr.CastExpr;
+import interpreter.expr.ConstExpr;
+import interpreter.expr.Expr;
+import interpreter.expr.UnaryExpr;
+import interpreter.value.BooleanValue;
+import interpreter.value.NumberValue;
+import interpreter.value.TextValue;
+import interpreter.value.Value;
+
+// Substitui operações sobre constantes pelo seu resultado. Só dobra o que
+// a execução faria sem erro: operações que abortariam (tipos errados,
+// divisão por zero) ou lançariam exceção continuam na árvore, para que o
+// erro aconteça na mesma linha e no mesmo momento.
+public class ConstantFoldingPass extends OptimizerPass {
+
+  // Expressões constantes não leem variáveis, não leem a entrada nem
+  // imprimem; basta um contexto vazio para avaliá-las.
+  private final Interpreter scratch = new Interpreter(null, null);
+
+  @Override
+  public String getName() {
+    return "constant-folding";
+  }
+
+  @Override
+  protected Expr rewrite(Expr expr) {
+    boolean fold;
+    if (expr instanceof BinaryExpr) {
+      fold = foldable((BinaryExpr) expr);
+    } else if (expr instanceof UnaryExpr) {
+      fold = foldable((UnaryExpr) expr);
+    } else if (expr instanceof CastExpr) {
+      fold = foldable((CastExpr) expr);
+    } else {
+      fold = false;
+    }
+
+    if (!fold) {
+      return expr;
+    }
+
+    // Um texto longo sai da concatenação como corda; achatá-lo aqui evita
+    // que scripts rodando a mesma árvore em paralelo o achatem juntos.
+    Value<?> value = expr.expr(scratch);
+    if (value instanceof TextValue) {
+      ((TextValue) value).value();
+    }
+
+    changed();
+    return new ConstExpr(expr.getLine(), value);
+  }
+
+  private boolean foldable(BinaryExpr be) {
+    if (!(be.getLeft() instanceof ConstExpr) || !(be.getRight() instanceof ConstExpr)) {
+      return false;
+    }
+
+    Value<?> lvalue = ((ConstExpr) be.getLeft()).getValue();
+    Value<?> rvalue = ((ConstExpr) be.getRight()).getValue();
+    boolean numbers = lvalue instanceof NumberValue && rvalue instanceof NumberValue;
+
+    switch (be.getOp()) {
+      case AndOp:
+      case OrOp:
+        return lvalue != null && rvalue != null;
+      case EqualOp:
+      case NotEqualOp:
+        return true;
+      case AddOp:
+        return numbers || (lvalue instanceof TextValue && rvalue instanceof TextValue);
+      case LowerThanOp:
+      case LowerEqualOp:
+      case GreaterThanOp:
+      case GreaterEqualOp:
+      case SubOp:
+      case MulOp:
+      case PowerOp:
+        return numbers;
+      case DivOp:
+      case ModOp:
+        return numbers && ((NumberValue) rvalue).intValue() != 0;
+      default:
+        return false;
+    }
+  }
+
+  private boolean foldable(UnaryExpr ue) {
+    if (!(ue.getExpr() instanceof ConstExpr)) {
+      return false;
+    }
+
+    Value<?> value = ((ConstExpr) ue.getExpr()).getValue();
+
+    switch (ue.getOp()) {
+      case NotOp:
+        return true;
+      case NegOp:
+        return value instanceof NumberValue;
+      default:
+        return false;
+    }
+  }
+
+  private boolean foldable(CastExpr ce) {
+    if (!(ce.getExpr() instanceof ConstExpr)) {
+      return false;
+    }
+
+    Value<?> value = ((ConstExpr) ce.getExpr()).getValue();
+
+    switch (ce.getOp()) {
+      case BooleanOp:
+        return true;
+      case StringOp:
+        return value != null;
+      case IntegerOp:
+        if (value instanceof NumberValue || value instanceof BooleanValue) {
+          return true;
+        } else if (value instanceof TextValue) {
+          try {
+            Integer.parseInt(((TextValue) value).value());
+            return true;
+          } catch (NumberFormatException e) {
+            return false;
+          }
+        } else {
+          return false;
+        }
+      default:
+        return false;
+    }
+  }
+
+}
@@ -0,0 +1,65 @@
+package interpreter.optimizer;
+
+import java.util.ArrayList;
+
+import interpreter.command.BlocksCommand;
+import interpreter.command.Command;
+import interpreter.command.IfCommand;
+import interpreter.command.WhileCommand;
+import interpreter.expr.ConstExpr;
+import interpreter.value.Value;
+
+// Remove ramos que nunca executam: um if com condição constante vira o
+// ramo escolhido e um while com condição constante falsa desaparece.
+// if (null) fica como está, pois a execução falha ao avaliá-lo.
+public class DeadBranchPass extends OptimizerPass {
+
+  @Override
+  public String getName() {
+    return "dead-branch";
+  }
+
+  @Override
+  protected Command rewrite(Command cmd) {
+    if (cmd instanceof IfCommand) {
+      IfCommand ic = (IfCommand) cmd;
+      if (!(ic.getExpr() instanceof ConstExpr)) {
+        return cmd;
+      }
+
+      Value<?> value = ((ConstExpr) ic.getExpr()).getValue();
+      if (value == null) {
+        return cmd;
+      }
+
+      changed();
+      if (value.eval()) {
+        return ic.getThenCommands();
+      } else if (ic.getElseCommands() != null) {
+        return ic.getElseCommands();
+      } else {
+        return empty(ic);
+      }
+    } else if (cmd instanceof WhileCommand) {
+      WhileCommand wc = (WhileCommand) cmd;
+      if (!(wc.getExpr() instanceof ConstExpr)) {
+        return cmd;
+      }
+
+      Value<?> value = ((ConstExpr) wc.getExpr()).getValue();
+      if (value != null && value.eval()) {
+        return cmd;
+      }
+
+      changed();
+      return empty(wc);
+    }
+
+    return cmd;
+  }
+
+  private static Command empty(Command cmd) {
+    return new BlocksCommand(cmd.getLine(), new ArrayList<Command>());
+  }
+
+}
@@ -0,0 +1,51 @@
+package interpreter.optimizer;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import interpreter.command.Command;
+
+// Aplica os passes em sequência sobre a árvore, entre a análise sintática
+// e a execução.
+public class Optimizer {
+
+  private List<OptimizerPass> passes;
+  private List<Long> times;
+
+  public Optimizer() {
+    this.passes = new ArrayList<OptimizerPass>();
+    this.times = new ArrayList<Long>();
+  }
+
+  public static Optimizer standard() {
+    Optimizer optimizer = new Optimizer();
+    optimizer.addPass(new ConstantFoldingPass());
+    optimizer.addPass(new DeadBranchPass());
+    return optimizer;
+  }
+
+  public void addPass(OptimizerPass pass) {
+    passes.add(pass);
+  }
+
+  public Command optimize(Command cmd) {
+    times.clear();
+    for (OptimizerPass pass : passes) {
+      long start = System.nanoTime();
+      cmd = pass.run(cmd);
+      times.add(System.nanoTime() - start);
+    }
+
+    return cmd;
+  }
+
+  public void printStats(PrintStream out) {
+    for (int i = 0; i < passes.size(); i++) {
+      OptimizerPass pass = passes.get(i);
+      long time = i < times.size() ? times.get(i) : 0;
+      out.printf("%-20s %6d changes %10.3f ms\n", pass.getName(), pass.getChanges(), time / 1e6);
+    }
+  }
+
+}
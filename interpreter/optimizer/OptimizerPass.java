@@ -0,0 +1,26 @@
+package interpreter.optimizer;
+
+import interpreter.command.Command;
+
+// Uma etapa do otimizador. Cada passe conta quantas vezes alterou a
+// árvore, para as estatísticas de --optimizer-stats.
+public abstract class OptimizerPass extends AstTransformer {
+
+  private int changes;
+
+  public abstract String getName();
+
+  public Command run(Command cmd) {
+    changes = 0;
+    return command(cmd);
+  }
+
+  public int getChanges() {
+    return changes;
+  }
+
+  protected void changed() {
+    changes++;
+  }
+
+}
@@ -0,0 +1,18 @@
+package interpreter.util;
+
+// Lançada por Utils.abort no lugar do antigo System.exit. Quem executa o
+// script (o Interpreter) decide o que fazer com ela.
+public class AbortException extends RuntimeException {
+
+    private final int line;
+
+    public AbortException(int line) {
+        super(String.format("%02d: Operação invalida", line), null, false, false);
+        this.line = line;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+}
@@ -0,0 +1,25 @@
+package interpreter.util;
+
+// Lançada num ponto de parada quando o script passa do limite de voltas
+// de laço ou do prazo definidos no Interpreter. Ao contrário da
+// AbortException, não é um erro do script: quem o executa decide como
+// informar a interrupção.
+public class BudgetExceededException extends RuntimeException {
+
+    public enum Limit {
+        Loops,
+        Time
+    }
+
+    private final Limit limit;
+
+    public BudgetExceededException(Limit limit, String message) {
+        super(message, null, false, false);
+        this.limit = limit;
+    }
+
+    public Limit getLimit() {
+        return limit;
+    }
+
+}
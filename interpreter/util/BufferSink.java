@@ -0,0 +1,30 @@
+package interpreter.util;
+
+// Saída guardada em memória, para quem executa o script e quer o texto
+// inteiro no final (o ScriptExecutor).
+public class BufferSink implements OutputSink {
+
+    private static final String NEWLINE = System.lineSeparator();
+
+    private final StringBuilder buffer = new StringBuilder();
+
+    @Override
+    public void print(String text) {
+        buffer.append(text);
+    }
+
+    @Override
+    public void println() {
+        buffer.append(NEWLINE);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public String toString() {
+        return buffer.toString();
+    }
+
+}
@@ -0,0 +1,94 @@
+package interpreter.util;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+// Saída com um buffer grande sobre um canal (a saída padrão ou um
+// FileChannel). Com flush por linha, cada quebra de linha esvazia o buffer,
+// como o System.out faz; com flush por bloco, ele só é escrito quando enche
+// e nos pontos em que alguém chama flush(): antes de ler a entrada, ao
+// abortar e ao terminar.
+public class ChannelSink implements OutputSink {
+
+    public enum Flush {
+        Line,
+        Block;
+    }
+
+    private static final int SIZE = 64 * 1024;
+    private static final String NEWLINE = System.lineSeparator();
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder;
+    private final ByteBuffer buffer = ByteBuffer.allocate(SIZE);
+    private final Flush mode;
+
+    public ChannelSink(WritableByteChannel channel, Charset charset, Flush mode) {
+        this.channel = channel;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.mode = mode;
+    }
+
+    public static ChannelSink stdout(Flush mode) {
+        return new ChannelSink(Channels.newChannel(new FileOutputStream(FileDescriptor.out)), stdoutCharset(), mode);
+    }
+
+    // Mesma codificação que o System.out usaria.
+    public static Charset stdoutCharset() {
+        String encoding = System.getProperty("sun.stdout.encoding");
+        return encoding != null ? Charset.forName(encoding) : Charset.defaultCharset();
+    }
+
+    @Override
+    public void print(String text) {
+        CharBuffer in = CharBuffer.wrap(text);
+        while (true) {
+            CoderResult result = encoder.encode(in, buffer, false);
+            if (result.isOverflow()) {
+                drain();
+            } else {
+                break;
+            }
+        }
+
+        if (mode == Flush.Line && text.indexOf('\n') >= 0) {
+            drain();
+        }
+    }
+
+    @Override
+    public void println() {
+        print(NEWLINE);
+    }
+
+    @Override
+    public void flush() {
+        drain();
+    }
+
+    private void drain() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+}
@@ -0,0 +1,11 @@
+package interpreter.util;
+
+// Origem das linhas lidas por read(). Há uma única por interpretador, para
+// que um read() não guarde em buffer a entrada destinada a outro.
+public interface InputSource {
+
+    // Devolve a próxima linha sem o terminador; no fim da entrada lança
+    // NoSuchElementException("No line found"), como o Scanner fazia.
+    String readLine();
+
+}
@@ -0,0 +1,58 @@
+package interpreter.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+// Linhas de um arquivo mapeado em memória (--input). Os terminadores são
+// os mesmos do BufferedReader: \n, \r ou \r\n.
+public class MappedInput implements InputSource {
+
+    private final ByteBuffer input;
+    private final Charset charset = Charset.defaultCharset();
+    private byte[] scratch = new byte[256];
+
+    public MappedInput(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            input = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    @Override
+    public String readLine() {
+        int start = input.position();
+        int limit = input.limit();
+        if (start >= limit) {
+            throw new NoSuchElementException("No line found");
+        }
+
+        int end = start;
+        while (end < limit) {
+            byte b = input.get(end);
+            if (b == '\n' || b == '\r') {
+                break;
+            }
+
+            end++;
+        }
+
+        int next = end;
+        if (next < limit) {
+            next += input.get(next) == '\r' && next + 1 < limit && input.get(next + 1) == '\n' ? 2 : 1;
+        }
+
+        int length = end - start;
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+
+        input.get(start, scratch, 0, length);
+        input.position(next);
+        return new String(scratch, 0, length, charset);
+    }
+
+}
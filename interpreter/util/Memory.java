@@ -5,16 +5,37 @@ import java.util.Map;
 
 import interpreter.value.Value;
 
+// Variáveis de uma execução. Cada Interpreter tem a sua, de modo que
+// vários scripts podem rodar na mesma JVM sem enxergar os dados uns dos
+// outros.
 public class Memory {
 
-    private static Map<String, Value<?>> memory = new HashMap<String, Value<?>>();
+    private Map<String, Value<?>> memory = new HashMap<String, Value<?>>();
+    private Value<?>[] frame = new Value<?>[0];
 
-    public static Value<?> read(String name) {
+    public Value<?> read(String name) {
         return memory.get(name);
     }
 
-    public static void write(String name, Value<?> value) {
+    public void write(String name, Value<?> value) {
         memory.put(name, value);
     }
 
+    public void allocate(int size) {
+        frame = new Value<?>[size];
+    }
+
+    public Value<?> read(int slot) {
+        return frame[slot];
+    }
+
+    public void write(int slot, Value<?> value) {
+        frame[slot] = value;
+    }
+
+    public void clear() {
+        memory.clear();
+        frame = new Value<?>[frame.length];
+    }
+
 }
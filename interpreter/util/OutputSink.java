@@ -0,0 +1,14 @@
+package interpreter.util;
+
+// Destino de tudo que o script imprime (print, println e os prompts de
+// read). Quem embute o interpretador pode fornecer a própria implementação.
+public interface OutputSink {
+
+    void print(String text);
+
+    void println();
+
+    // Entrega ao destino tudo que estiver em buffer.
+    void flush();
+
+}
@@ -0,0 +1,38 @@
+package interpreter.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.NoSuchElementException;
+
+// Linhas de um fluxo qualquer, normalmente a entrada padrão.
+public class ReaderInput implements InputSource {
+
+    private static final int SIZE = 64 * 1024;
+
+    private final BufferedReader reader;
+
+    public ReaderInput(InputStream stream) {
+        this.reader = new BufferedReader(new InputStreamReader(stream, Charset.defaultCharset()), SIZE);
+    }
+
+    @Override
+    public String readLine() {
+        String line;
+        try {
+            line = reader.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (line == null) {
+            throw new NoSuchElementException("No line found");
+        }
+
+        return line;
+    }
+
+}
@@ -0,0 +1,37 @@
+package interpreter.util;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import interpreter.expr.Variable;
+
+public class Resolver {
+
+    private Map<String, Integer> slots;
+
+    public Resolver() {
+        slots = new HashMap<String, Integer>();
+    }
+
+    // Atribui a cada variável o índice do seu slot no frame; variáveis
+    // com o mesmo nome compartilham o slot, pois o escopo é global.
+    public int resolve(List<Variable> variables) {
+        for (Variable variable : variables) {
+            Integer slot = slots.get(variable.getName());
+            if (slot == null) {
+                slot = slots.size();
+                slots.put(variable.getName(), slot);
+            }
+
+            variable.setSlot(slot);
+        }
+
+        return slots.size();
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+}
@@ -5,9 +5,9 @@ public class Utils {
     private Utils() {
     }
 
+    // Interrompe o script; a mensagem é impressa por quem o executa.
     public static void abort(int line) {
-        System.out.printf("%02d: Operação invalida\n", line);
-        System.exit(1);
+        throw new AbortException(line);
     }
 
-}
\ No newline at end of file
+}
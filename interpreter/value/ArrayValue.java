@@ -6,15 +6,95 @@ public class ArrayValue extends Value<List<Value<?>>> {
 
     private List<Value<?>> value;
 
+    // Marcador de edição dos nós do vetor persistente que só este valor
+    // enxerga; null depois que o vetor é publicado por value() ou concat.
+    private Object edit;
+
     public ArrayValue(List<Value<?>> value) {
-        this.value = value;
+        this(value, false);
+    }
+
+    // Com armazenamento persistente, a + b e a += b não alteram mais a
+    // lista do operando da esquerda. A escolha é de cada execução
+    // (Interpreter.newArray), não da JVM.
+    public ArrayValue(List<Value<?>> value, boolean persistent) {
+        if (persistent) {
+            this.value = value instanceof PersistentVector ? value : PersistentVector.of(value);
+        } else {
+            // Arrays só de números ficam num int[] até receberem outro tipo.
+            IntList ints = IntList.of(value);
+            this.value = ints != null ? ints : value;
+        }
+    }
+
+    private ArrayValue() {
+    }
+
+    // Compartilha a lista sem convertê-la, como a + b sempre fez.
+    private static ArrayValue shared(List<Value<?>> value) {
+        ArrayValue a = new ArrayValue();
+        a.value = value;
+        return a;
     }
 
     @Override
     public List<Value<?>> value() {
+        this.edit = null;
         return this.value;
     }
 
+    public int size() {
+        return this.value.size();
+    }
+
+    public Value<?> get(int index) {
+        return this.value.get(index);
+    }
+
+    public boolean holdsInts() {
+        return this.value instanceof IntList && ((IntList) this.value).holdsInts();
+    }
+
+    // Só vale enquanto holdsInts() for verdadeiro.
+    public int getInt(int index) {
+        return ((IntList) this.value).getInt(index);
+    }
+
+    public boolean containsInt(int n) {
+        return ((IntList) this.value).containsInt(n);
+    }
+
+    public void set(int index, Value<?> v) {
+        if (this.value instanceof PersistentVector) {
+            this.value = ((PersistentVector) this.value).assoc(edit(), index, v);
+        } else {
+            this.value.set(index, v);
+        }
+    }
+
+    // a + b: na lista comum, anexa ao próprio a (como sempre foi); no
+    // vetor persistente, devolve um novo vetor que compartilha os nós de a.
+    public ArrayValue concat(ArrayValue other) {
+        if (this.value instanceof PersistentVector) {
+            this.edit = null;
+            PersistentVector pv = (PersistentVector) this.value;
+            ArrayValue result = shared(pv);
+            result.value = pv.appendAll(result.edit(), other.value);
+            return result;
+        } else {
+            this.value.addAll(other.value);
+            return shared(this.value);
+        }
+    }
+
+    private Object edit() {
+        if (this.edit == null) {
+            this.edit = new Object();
+        }
+
+        return this.edit;
+    }
+
     @Override
     public boolean eval() {
         return !value.isEmpty();
@@ -0,0 +1,182 @@
+package interpreter.value;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
+
+// Lista de valores guardada num int[] enquanto todos os elementos forem
+// números. Ao receber o primeiro valor que não é número (inclusive null),
+// passa a delegar para um ArrayList e não volta mais ao int[]. Como a
+// troca acontece dentro da lista, todo ArrayValue que a compartilha vê a
+// mudança.
+final class IntList extends AbstractList<Value<?>> implements RandomAccess {
+
+    private int[] ints;
+    private int size;
+    private List<Value<?>> values;
+
+    private IntList(int[] ints, int size) {
+        this.ints = ints;
+        this.size = size;
+    }
+
+    // Devolve null se algum elemento não for número.
+    static IntList of(List<Value<?>> list) {
+        int n = list.size();
+        int[] ints = new int[Math.max(n, 4)];
+        for (int i = 0; i < n; i++) {
+            Value<?> v = list.get(i);
+            if (!(v instanceof NumberValue)) {
+                return null;
+            }
+
+            ints[i] = ((NumberValue) v).intValue();
+        }
+
+        return new IntList(ints, n);
+    }
+
+    boolean holdsInts() {
+        return ints != null;
+    }
+
+    int getInt(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        return ints[index];
+    }
+
+    boolean containsInt(int n) {
+        for (int i = 0; i < size; i++) {
+            if (ints[i] == n) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return ints != null ? size : values.size();
+    }
+
+    @Override
+    public Value<?> get(int index) {
+        if (ints != null) {
+            return ValueFactory.number(getInt(index));
+        }
+
+        return values.get(index);
+    }
+
+    @Override
+    public Value<?> set(int index, Value<?> v) {
+        if (ints != null) {
+            if (v instanceof NumberValue) {
+                Value<?> old = get(index);
+                ints[index] = ((NumberValue) v).intValue();
+                return old;
+            }
+
+            generalize();
+        }
+
+        return values.set(index, v);
+    }
+
+    @Override
+    public void add(int index, Value<?> v) {
+        modCount++;
+        if (ints != null) {
+            if (v instanceof NumberValue && index == size) {
+                if (size == ints.length) {
+                    ints = Arrays.copyOf(ints, size * 2);
+                }
+
+                ints[size++] = ((NumberValue) v).intValue();
+                return;
+            }
+
+            generalize();
+        }
+
+        values.add(index, v);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Value<?>> c) {
+        if (ints != null && c instanceof IntList && ((IntList) c).ints != null) {
+            IntList other = (IntList) c;
+            int n = other.size;
+            if (n == 0) {
+                return false;
+            }
+
+            modCount++;
+            if (size + n > ints.length) {
+                ints = Arrays.copyOf(ints, Math.max(size + n, size * 2));
+            }
+
+            System.arraycopy(other.ints, 0, ints, size, n);
+            size += n;
+            return true;
+        }
+
+        if (ints == null) {
+            modCount++;
+            return values.addAll(c);
+        }
+
+        // toArray antes de inserir, como no ArrayList, para que a + a não
+        // percorra a lista enquanto ela cresce.
+        Object[] array = c.toArray();
+        for (Object v : array) {
+            add(size(), (Value<?>) v);
+        }
+
+        return array.length != 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (ints != null) {
+            return o instanceof NumberValue && containsInt(((NumberValue) o).intValue());
+        }
+
+        return values.contains(o);
+    }
+
+    // Mesmo contrato do ArrayList.forEach: percorre o tamanho inicial e
+    // acusa, ao final, alterações estruturais feitas durante o laço.
+    @Override
+    public void forEach(Consumer<? super Value<?>> action) {
+        int expected = modCount;
+        int n = size();
+        for (int i = 0; modCount == expected && i < n; i++) {
+            action.accept(ints != null ? ValueFactory.number(ints[i]) : values.get(i));
+        }
+
+        if (modCount != expected) {
+            throw new ConcurrentModificationException();
+        }
+    }
+
+    private void generalize() {
+        List<Value<?>> list = new ArrayList<Value<?>>(Math.max(size * 2, 10));
+        for (int i = 0; i < size; i++) {
+            list.add(ValueFactory.number(ints[i]));
+        }
+
+        values = list;
+        ints = null;
+    }
+
+}
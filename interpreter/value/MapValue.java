@@ -6,8 +6,14 @@ public class MapValue extends Value<Map<String, Value<?>>> {
 
     private Map<String, Value<?>> value;
 
+    public MapValue() {
+        this.value = new ShapedMap();
+    }
+
+    // Mapas compartilhados por a + b já chegam como ShapedMap e seguem
+    // compartilhados; os demais são copiados para um.
     public MapValue(Map<String, Value<?>> value) {
-        this.value = value;
+        this.value = value instanceof ShapedMap ? value : ShapedMap.of(value);
     }
 
     @Override
@@ -15,6 +21,27 @@ public class MapValue extends Value<Map<String, Value<?>>> {
         return this.value;
     }
 
+    public Value<?> get(String key) {
+        return this.value.get(key);
+    }
+
+    public void put(String key, Value<?> v) {
+        this.value.put(key, v);
+    }
+
+    // Formato atual, ou null se o mapa deixou de usar formatos.
+    public Shape shape() {
+        return ((ShapedMap) this.value).shape();
+    }
+
+    public Value<?> getSlot(int slot) {
+        return ((ShapedMap) this.value).getSlot(slot);
+    }
+
+    public void setSlot(int slot, Value<?> v) {
+        ((ShapedMap) this.value).setSlot(slot, v);
+    }
+
     @Override
     public boolean eval() {
         return !value.isEmpty();
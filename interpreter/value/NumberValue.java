@@ -2,9 +2,9 @@ package interpreter.value;
 
 public class NumberValue extends Value<Integer> {
 
-    private Integer value;
+    private int value;
 
-    public NumberValue(Integer value) {
+    public NumberValue(int value) {
         this.value = value;
     }
 
@@ -13,14 +13,18 @@ public class NumberValue extends Value<Integer> {
         return this.value;
     }
 
+    public int intValue() {
+        return this.value;
+    }
+
     @Override
     public boolean eval() {
-        return value.intValue() != 0;
+        return value != 0;
     }
 
     @Override
     public int hashCode() {
-        return this.value.hashCode();
+        return Integer.hashCode(this.value);
     }
 
     @Override
@@ -28,7 +32,7 @@ public class NumberValue extends Value<Integer> {
         if (this == obj) {
             return true;
         } else if (obj instanceof NumberValue) {
-            return this.value.intValue() == ((NumberValue) obj).value.intValue();
+            return this.value == ((NumberValue) obj).value;
         } else {
             return false;
         }
@@ -36,7 +40,7 @@ public class NumberValue extends Value<Integer> {
 
     @Override
     public String toString() {
-        return this.value.toString();
+        return Integer.toString(this.value);
     }
 
 }
@@ -0,0 +1,210 @@
+package interpreter.value;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Vetor persistente: trie de 32 vias com uma cauda, como o de Clojure.
+// Cada operação devolve um novo vetor que compartilha os nós não
+// alterados com o anterior. Nós criados sob o mesmo marcador de edição
+// (edit) podem ser alterados no lugar enquanto o dono não os publicar.
+final class PersistentVector extends AbstractList<Value<?>> {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    static final PersistentVector EMPTY =
+        new PersistentVector(0, BITS, new Node(null), new Node(null));
+
+    private static final class Node {
+        final Object edit;
+        final Object[] array;
+
+        Node(Object edit) {
+            this(edit, new Object[WIDTH]);
+        }
+
+        Node(Object edit, Object[] array) {
+            this.edit = edit;
+            this.array = array;
+        }
+    }
+
+    private final int count;
+    private final int shift;
+    private final Node root;
+    private final Node tail;
+
+    private PersistentVector(int count, int shift, Node root, Node tail) {
+        this.count = count;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    static PersistentVector of(List<Value<?>> values) {
+        Object edit = new Object();
+        PersistentVector pv = EMPTY;
+        for (Value<?> v : values) {
+            pv = pv.append(edit, v);
+        }
+
+        return pv;
+    }
+
+    @Override
+    public int size() {
+        return this.count;
+    }
+
+    @Override
+    public Value<?> get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        return (Value<?>) leaf(index)[index & MASK];
+    }
+
+    @Override
+    public Iterator<Value<?>> iterator() {
+        return new Iterator<Value<?>>() {
+            private int index = 0;
+            private Object[] leaf = null;
+
+            @Override
+            public boolean hasNext() {
+                return index < count;
+            }
+
+            @Override
+            public Value<?> next() {
+                if (index >= count) {
+                    throw new NoSuchElementException();
+                }
+
+                if ((index & MASK) == 0 || leaf == null) {
+                    leaf = leaf(index);
+                }
+
+                return (Value<?>) leaf[index++ & MASK];
+            }
+        };
+    }
+
+    PersistentVector append(Object edit, Value<?> value) {
+        int used = count - tailOffset();
+        if (used < WIDTH) {
+            Node t = editable(tail, edit);
+            t.array[used] = value;
+            return new PersistentVector(count + 1, shift, root, t);
+        }
+
+        // Cauda cheia: ela desce para a árvore e uma nova cauda começa.
+        Node newRoot;
+        int newShift = shift;
+        if ((count >>> BITS) > (1 << shift)) {
+            newRoot = new Node(edit);
+            newRoot.array[0] = root;
+            newRoot.array[1] = newPath(edit, shift, tail);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(edit, shift, root, tail);
+        }
+
+        Node t = new Node(edit);
+        t.array[0] = value;
+        return new PersistentVector(count + 1, newShift, newRoot, t);
+    }
+
+    PersistentVector appendAll(Object edit, List<Value<?>> values) {
+        PersistentVector pv = this;
+        for (Value<?> v : values) {
+            pv = pv.append(edit, v);
+        }
+
+        return pv;
+    }
+
+    PersistentVector assoc(Object edit, int index, Value<?> value) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        if (index >= tailOffset()) {
+            Node t = editable(tail, edit);
+            t.array[index & MASK] = value;
+            return new PersistentVector(count, shift, root, t);
+        }
+
+        return new PersistentVector(count, shift, assoc(edit, shift, root, index, value), tail);
+    }
+
+    private Node assoc(Object edit, int level, Node node, int index, Value<?> value) {
+        Node ret = editable(node, edit);
+        if (level == 0) {
+            ret.array[index & MASK] = value;
+        } else {
+            int sub = (index >>> level) & MASK;
+            ret.array[sub] = assoc(edit, level - BITS, (Node) node.array[sub], index, value);
+        }
+
+        return ret;
+    }
+
+    private int tailOffset() {
+        return count < WIDTH ? 0 : ((count - 1) >>> BITS) << BITS;
+    }
+
+    private Object[] leaf(int index) {
+        if (index >= tailOffset()) {
+            return tail.array;
+        }
+
+        Node node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Node) node.array[(index >>> level) & MASK];
+        }
+
+        return node.array;
+    }
+
+    private Node pushTail(Object edit, int level, Node parent, Node tailNode) {
+        int sub = ((count - 1) >>> level) & MASK;
+        Node ret = editable(parent, edit);
+        Node insert;
+        if (level == BITS) {
+            insert = tailNode;
+        } else {
+            Node child = (Node) parent.array[sub];
+            insert = child != null
+                ? pushTail(edit, level - BITS, child, tailNode)
+                : newPath(edit, level - BITS, tailNode);
+        }
+
+        ret.array[sub] = insert;
+        return ret;
+    }
+
+    private static Node newPath(Object edit, int level, Node node) {
+        if (level == 0) {
+            return node;
+        }
+
+        Node ret = new Node(edit);
+        ret.array[0] = newPath(edit, level - BITS, node);
+        return ret;
+    }
+
+    // Só altera no lugar nós do próprio dono; os demais são copiados.
+    private static Node editable(Node node, Object edit) {
+        if (edit != null && node.edit == edit) {
+            return node;
+        }
+
+        return new Node(edit, node.array.clone());
+    }
+
+}
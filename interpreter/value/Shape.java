@@ -0,0 +1,154 @@
+package interpreter.value;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+// Descritor compartilhado por todos os mapas com as mesmas chaves, na
+// mesma ordem de inserção: diz em que posição (slot) do array de valores
+// cada chave está. Os descritores formam uma árvore de transições a partir
+// do vazio, de modo que mapas construídos da mesma forma caem no mesmo
+// objeto e podem ser reconhecidos por identidade.
+//
+// Também guarda a ordem em que um HashMap com essas chaves as percorreria,
+// para que a impressão, keys() e values() não mudem. Essa ordem depende da
+// capacidade da tabela, que é acompanhada aqui com as mesmas regras do
+// HashMap: 16 posições na primeira inserção, pré-dimensionamento no putAll
+// sobre um mapa ainda sem tabela, e dobra quando passa de 3/4 de ocupação.
+//
+// As transições guardam os filhos por referência fraca: um formato só
+// continua vivo enquanto algum mapa (ou o cache de um AccessExpr) o usa.
+// Cada formato segura o pai, então enquanto ele vive o caminho até ele na
+// árvore continua o mesmo e mapas refeitos com as mesmas chaves o reencontram.
+// Num processo longo, como o daemon, as ordens de inserção dos scripts
+// que já terminaram não se acumulam na árvore.
+public final class Shape {
+
+    static final Shape EMPTY = new Shape(null, new String[0], 0);
+    private static final Map<Integer, Shape> PRESIZED = new HashMap<Integer, Shape>();
+    private static final ReferenceQueue<Shape> CLEARED = new ReferenceQueue<Shape>();
+
+    // Entrada da tabela de transições do pai; depois que o filho é
+    // coletado, chega a CLEARED e é removida da tabela.
+    private static final class Transition extends WeakReference<Shape> {
+        private final Shape parent;
+        private final String key;
+
+        Transition(Shape parent, String key, Shape child) {
+            super(child, CLEARED);
+            this.parent = parent;
+            this.key = key;
+        }
+    }
+
+    private final Shape parent;
+    private final String[] keys;
+    private final int capacity;
+    private final Map<String, Integer> slots;
+    private final int[] order;
+    private final Map<String, Transition> transitions = new HashMap<String, Transition>();
+
+    private Shape(Shape parent, String[] keys, int capacity) {
+        this.parent = parent;
+        this.keys = keys;
+        this.capacity = capacity;
+        this.slots = new HashMap<String, Integer>(keys.length * 2);
+        for (int i = 0; i < keys.length; i++) {
+            slots.put(keys[i], i);
+        }
+
+        this.order = new int[keys.length];
+        if (keys.length > 0) {
+            Map<String, Integer> probe = new HashMap<String, Integer>(capacity);
+            for (int i = 0; i < keys.length; i++) {
+                probe.put(keys[i], i);
+            }
+
+            int n = 0;
+            for (int slot : probe.values()) {
+                order[n++] = slot;
+            }
+        }
+    }
+
+    // Posição da chave, ou -1 se ela não faz parte deste formato.
+    public int slot(String key) {
+        Integer slot = slots.get(key);
+        return slot != null ? slot : -1;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    String key(int slot) {
+        return keys[slot];
+    }
+
+    // Slots na ordem de iteração do HashMap equivalente.
+    int[] order() {
+        return order;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    Shape with(String key) {
+        expunge();
+        synchronized (this) {
+            Transition t = transitions.get(key);
+            Shape next = t != null ? t.get() : null;
+            if (next == null) {
+                int n = keys.length + 1;
+                int cap = capacity == 0 ? 16 : capacity;
+                if (n > (int) (cap * 0.75f)) {
+                    cap *= 2;
+                }
+
+                String[] nextKeys = new String[n];
+                System.arraycopy(keys, 0, nextKeys, 0, keys.length);
+                nextKeys[keys.length] = key;
+                next = new Shape(this, nextKeys, cap);
+                transitions.put(key, new Transition(this, key, next));
+            }
+
+            return next;
+        }
+    }
+
+    // Fora do lock do formato: cada entrada é removida sob o lock do seu
+    // próprio pai, um de cada vez.
+    private static void expunge() {
+        Transition t;
+        while ((t = (Transition) CLEARED.poll()) != null) {
+            synchronized (t.parent) {
+                if (t.parent.transitions.get(t.key) == t) {
+                    t.parent.transitions.remove(t.key);
+                }
+            }
+        }
+    }
+
+    // Mapa vazio que recebeu um putAll de size chaves antes de qualquer
+    // inserção: o HashMap já nasce com a tabela do tamanho necessário.
+    static Shape presized(int size) {
+        int cap = tableSizeFor((int) (size / 0.75f + 1.0f));
+        synchronized (PRESIZED) {
+            Shape shape = PRESIZED.get(cap);
+            if (shape == null) {
+                shape = new Shape(null, new String[0], cap);
+                PRESIZED.put(cap, shape);
+            }
+
+            return shape;
+        }
+    }
+
+    private static int tableSizeFor(int n) {
+        int cap = Integer.highestOneBit(Math.max(n, 1));
+        return cap < n ? cap << 1 : cap;
+    }
+
+}
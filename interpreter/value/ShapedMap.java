@@ -0,0 +1,164 @@
+package interpreter.value;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+// Mapa guardado como um Shape mais um array de valores indexado pelos
+// slots do formato. Passando de MAX_KEYS chaves, os formatos deixam de
+// compensar e o mapa passa a delegar para um HashMap, montado com a mesma
+// capacidade e ordem de inserção para manter a ordem de iteração.
+final class ShapedMap extends AbstractMap<String, Value<?>> {
+
+    private static final int MAX_KEYS = 32;
+
+    private Shape shape = Shape.EMPTY;
+    private Value<?>[] values = new Value<?>[4];
+    private Map<String, Value<?>> map;
+
+    // Reinsere na ordem de iteração: dentro de cada posição da tabela ela
+    // é a ordem de inserção, então o resultado percorre as chaves igual.
+    static ShapedMap of(Map<String, Value<?>> m) {
+        ShapedMap sm = new ShapedMap();
+        for (Map.Entry<String, Value<?>> e : m.entrySet()) {
+            sm.put(e.getKey(), e.getValue());
+        }
+
+        return sm;
+    }
+
+    // null depois que o mapa passou a usar um HashMap.
+    Shape shape() {
+        return map == null ? shape : null;
+    }
+
+    Value<?> getSlot(int slot) {
+        return values[slot];
+    }
+
+    void setSlot(int slot, Value<?> v) {
+        values[slot] = v;
+    }
+
+    @Override
+    public int size() {
+        return map != null ? map.size() : shape.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Value<?> get(Object key) {
+        if (map != null) {
+            return map.get(key);
+        }
+
+        int slot = key instanceof String ? shape.slot((String) key) : -1;
+        return slot < 0 ? null : values[slot];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (map != null) {
+            return map.containsKey(key);
+        }
+
+        return key instanceof String && shape.slot((String) key) >= 0;
+    }
+
+    @Override
+    public Value<?> put(String key, Value<?> v) {
+        if (map != null) {
+            return map.put(key, v);
+        }
+
+        int slot = shape.slot(key);
+        if (slot >= 0) {
+            Value<?> old = values[slot];
+            values[slot] = v;
+            return old;
+        }
+
+        if (shape.size() >= MAX_KEYS) {
+            generalize();
+            return map.put(key, v);
+        }
+
+        shape = shape.with(key);
+        slot = shape.size() - 1;
+        if (slot == values.length) {
+            values = Arrays.copyOf(values, slot * 2);
+        }
+
+        values[slot] = v;
+        return null;
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends Value<?>> m) {
+        if (map == null && shape == Shape.EMPTY && !m.isEmpty()) {
+            shape = Shape.presized(m.size());
+        }
+
+        for (Map.Entry<? extends String, ? extends Value<?>> e : m.entrySet()) {
+            put(e.getKey(), e.getValue());
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<String, Value<?>>> entrySet() {
+        if (map != null) {
+            return map.entrySet();
+        }
+
+        return new AbstractSet<Map.Entry<String, Value<?>>>() {
+            @Override
+            public int size() {
+                return ShapedMap.this.size();
+            }
+
+            @Override
+            public Iterator<Map.Entry<String, Value<?>>> iterator() {
+                Shape s = shape;
+                int[] order = s.order();
+                return new Iterator<Map.Entry<String, Value<?>>>() {
+                    private int next = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < order.length;
+                    }
+
+                    @Override
+                    public Map.Entry<String, Value<?>> next() {
+                        if (next >= order.length) {
+                            throw new NoSuchElementException();
+                        }
+
+                        int slot = order[next++];
+                        return new SimpleImmutableEntry<String, Value<?>>(s.key(slot), values[slot]);
+                    }
+                };
+            }
+        };
+    }
+
+    private void generalize() {
+        Map<String, Value<?>> m = new HashMap<String, Value<?>>(shape.capacity());
+        for (int slot = 0; slot < shape.size(); slot++) {
+            m.put(shape.key(slot), values[slot]);
+        }
+
+        map = m;
+        values = null;
+    }
+
+}
@@ -1,26 +1,98 @@
 package interpreter.value;
 
+import java.util.ArrayDeque;
+
 public class TextValue extends Value<String> {
 
-    private String value;
+    // Concatenações mais curtas que isto são copiadas na hora.
+    private static final int SHORT = 64;
+
+    // O texto (String) ou, enquanto a concatenação não foi observada, o
+    // nó de corda (Rope). Tudo passa por este único campo volátil: com a
+    // árvore compartilhada entre threads (ScriptExecutor, daemon), uma
+    // constante pode ser achatada por duas threads ao mesmo tempo, e quem
+    // lê vê a corda inteira ou o texto pronto, nunca um meio-termo. Trocar
+    // a corda pelo texto é o que solta os filhos.
+    private volatile Object content;
+    private final int length;
+
+    private static final class Rope {
+        private final TextValue left;
+        private final TextValue right;
+
+        Rope(TextValue left, TextValue right) {
+            this.left = left;
+            this.right = right;
+        }
+    }
 
     public TextValue(String value) {
-        this.value = value;
+        this.content = value;
+        this.length = value.length();
+    }
+
+    private TextValue(TextValue left, TextValue right) {
+        this.content = new Rope(left, right);
+        this.length = left.length + right.length;
+    }
+
+    // Concatena em O(1), adiando a cópia até o conteúdo ser observado.
+    public TextValue concat(TextValue other) {
+        if (other.length == 0) {
+            return this;
+        } else if (this.length == 0) {
+            return other;
+        } else if (this.length + other.length <= SHORT) {
+            return new TextValue(this.value() + other.value());
+        } else {
+            return new TextValue(this, other);
+        }
+    }
+
+    public int length() {
+        return this.length;
     }
 
     @Override
     public String value() {
-        return this.value;
+        Object content = this.content;
+        if (content instanceof String) {
+            return (String) content;
+        }
+
+        String value = flatten();
+        this.content = value;
+        return value;
+    }
+
+    // Percorre a corda sem recursão, já que s += 'x' num laço
+    // produz uma árvore com a profundidade do número de iterações.
+    private String flatten() {
+        StringBuilder sb = new StringBuilder(this.length);
+        ArrayDeque<TextValue> pending = new ArrayDeque<>();
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            Object content = pending.pop().content;
+            if (content instanceof String) {
+                sb.append((String) content);
+            } else {
+                Rope rope = (Rope) content;
+                pending.push(rope.right);
+                pending.push(rope.left);
+            }
+        }
+
+        return sb.toString();
     }
 
     @Override
     public boolean eval() {
-        return !value.equals("");
+        return this.length != 0;
     }
 
     @Override
     public int hashCode() {
-        return this.value.hashCode();
+        return this.value().hashCode();
     }
 
     @Override
@@ -28,7 +100,9 @@ public class TextValue extends Value<String> {
         if (this == obj) {
             return true;
         } else if (obj instanceof TextValue) {
-            return this.value.equals(((TextValue) obj).value);
+            TextValue other = (TextValue) obj;
+            return this.length == other.length
+                && this.value().equals(other.value());
         } else {
             return false;
         }
@@ -36,7 +110,7 @@ public class TextValue extends Value<String> {
 
     @Override
     public String toString() {
-        return this.value.toString();
+        return this.value();
     }
 
 }
@@ -0,0 +1,38 @@
+package interpreter.value;
+
+// Ponto único de criação dos valores usados pelo interpretador. Os booleanos
+// são sempre as instâncias TRUE/FALSE e os inteiros pequenos vêm de um cache,
+// de modo que comparações e contadores de laço não alocam. A faixa do cache
+// pode ser ajustada com -Dmgi.numbercache.low e -Dmgi.numbercache.high.
+public class ValueFactory {
+
+    private static final int LOW = Integer.getInteger("mgi.numbercache.low", -128);
+    private static final int HIGH = Integer.getInteger("mgi.numbercache.high", 1023);
+    private static final NumberValue[] NUMBERS = new NumberValue[Math.max(HIGH - LOW + 1, 0)];
+
+    static {
+        for (int i = 0; i < NUMBERS.length; i++) {
+            NUMBERS[i] = new NumberValue(LOW + i);
+        }
+    }
+
+    private ValueFactory() {
+    }
+
+    public static BooleanValue bool(boolean value) {
+        return value ? BooleanValue.TRUE : BooleanValue.FALSE;
+    }
+
+    public static NumberValue number(int value) {
+        if (value >= LOW && value <= HIGH) {
+            return NUMBERS[value - LOW];
+        }
+
+        return new NumberValue(value);
+    }
+
+    public static TextValue text(String value) {
+        return new TextValue(value);
+    }
+
+}
@@ -1,13 +1,81 @@
 package lexical;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
 public class Lexeme {
 
-    public String token;
     public TokenType type;
 
+    // O lexema guarda apenas a posição no buffer do código-fonte; o texto só
+    // é criado quando alguém o pede.
+    private ByteBuffer source;
+    private int start;
+    private int length;
+    private String token;
+
     public Lexeme(String token, TokenType type) {
         this.token = token;
         this.type = type;
     }
 
+    Lexeme(ByteBuffer source, int start, TokenType type) {
+        this.source = source;
+        this.start = start;
+        this.type = type;
+    }
+
+    void start(int start) {
+        this.start = start;
+        this.length = 0;
+    }
+
+    void append(int count) {
+        this.length += count;
+    }
+
+    int getStart() {
+        return start;
+    }
+
+    int getLength() {
+        return length;
+    }
+
+    ByteBuffer getSource() {
+        return source;
+    }
+
+    public String token() {
+        if (token == null) {
+            byte[] bytes = new byte[length];
+            source.get(start, bytes);
+            token = new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+
+        return token;
+    }
+
+    // Converte os dígitos direto do buffer; como Integer.parseInt no
+    // analisador sintático, um valor fora da faixa de int resulta em 0.
+    public int intValue() {
+        if (token != null) {
+            try {
+                return Integer.parseInt(token);
+            } catch (Exception e) {
+                return 0;
+            }
+        }
+
+        long value = 0;
+        for (int i = start; i < start + length; i++) {
+            value = value * 10 + (source.get(i) - '0');
+            if (value > Integer.MAX_VALUE) {
+                return 0;
+            }
+        }
+
+        return length == 0 ? 0 : (int) value;
+    }
+
 }
@@ -1,17 +1,200 @@
 package lexical;
 
-import java.io.FileInputStream;
-import java.io.PushbackInputStream;
+import java.io.Closeable;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 
 public class LexicalAnalysis implements AutoCloseable {
 
+    // Classes de caracteres: cada byte da entrada (e o fim de arquivo) é
+    // mapeado para uma coluna da tabela de transições.
+    private static final int OTHER = 0;
+    private static final int SPACE = 1;
+    private static final int NEWLINE = 2;
+    private static final int SLASH = 3;
+    private static final int STAR = 4;
+    private static final int EQUAL = 5;
+    private static final int OPERATOR = 6;
+    private static final int GREATER = 7;
+    private static final int MINUS = 8;
+    private static final int PUNCTUATION = 9;
+    private static final int BANG = 10;
+    private static final int AMPERSAND = 11;
+    private static final int PIPE = 12;
+    private static final int QUOTE = 13;
+    private static final int LETTER = 14;
+    private static final int LETTER_I = 15;
+    private static final int LETTER_N = 16;
+    private static final int DIGIT = 17;
+    private static final int EOF = 18;
+    private static final int CLASSES = 19;
+
+    // Ações executadas ao percorrer uma transição.
+    private static final int NONE = 0;
+    private static final int LINE = 1;
+    private static final int START = 2;
+    private static final int MARK = 3;
+    private static final int APPEND = 4;
+    private static final int APPEND_IN = 5;
+    private static final int UNGET = 6;
+    private static final int UNGET_I = 7;
+
+    // Estados finais: SYMBOL consulta a tabela de símbolos, os demais já
+    // determinam o tipo do lexema.
+    private static final int SYMBOL = 14;
+    private static final int END = 15;
+    private static final int INVALID = 16;
+    private static final int NUMBER = 17;
+    private static final int TEXT = 18;
+
+    private static final TokenType[] ACCEPT = {
+            null, TokenType.END_OF_FILE, TokenType.INVALID_TOKEN, TokenType.NUMBER, TokenType.TEXT
+    };
+
+    private static final byte[] CHAR_CLASS = new byte[257];
+    private static final short[] TRANSITIONS = new short[SYMBOL * CLASSES];
+
+    static {
+        CHAR_CLASS[0] = EOF;
+        for (int c = 0; c < 256; c++) {
+            int cls = OTHER;
+            if (c == ' ' || c == '\t' || c == '\r')
+                cls = SPACE;
+            else if (c == '\n')
+                cls = NEWLINE;
+            else if (c == '/')
+                cls = SLASH;
+            else if (c == '*')
+                cls = STAR;
+            else if (c == '=')
+                cls = EQUAL;
+            else if (c == '+' || c == '<' || c == '%')
+                cls = OPERATOR;
+            else if (c == '>')
+                cls = GREATER;
+            else if (c == '-')
+                cls = MINUS;
+            else if (c == '.' || c == ',' || c == ';' || c == ':' ||
+                    c == '(' || c == ')' || c == '[' || c == ']' ||
+                    c == '{' || c == '}')
+                cls = PUNCTUATION;
+            else if (c == '!')
+                cls = BANG;
+            else if (c == '&')
+                cls = AMPERSAND;
+            else if (c == '|')
+                cls = PIPE;
+            else if (c == '\'')
+                cls = QUOTE;
+            else if (c == 'i')
+                cls = LETTER_I;
+            else if (c == 'n')
+                cls = LETTER_N;
+            else if (c == '_' || c == '$' || Character.isLetter(c))
+                cls = LETTER;
+            else if (Character.isDigit(c))
+                cls = DIGIT;
+
+            CHAR_CLASS[c + 1] = (byte) cls;
+        }
+
+        // 1: início do lexema
+        otherwise(1, START, INVALID);
+        on(1, SPACE, NONE, 1);
+        on(1, NEWLINE, LINE, 1);
+        on(1, SLASH, START, 2);
+        on(1, STAR, START, 4);
+        on(1, EQUAL, START, 5);
+        on(1, OPERATOR, START, 5);
+        on(1, GREATER, START, 5);
+        on(1, MINUS, START, 6);
+        on(1, PUNCTUATION, START, SYMBOL);
+        on(1, BANG, START, 7);
+        on(1, AMPERSAND, START, 9);
+        on(1, PIPE, START, 10);
+        on(1, QUOTE, MARK, 13);
+        on(1, LETTER, START, 11);
+        on(1, LETTER_I, START, 11);
+        on(1, LETTER_N, START, 11);
+        on(1, DIGIT, START, 12);
+        on(1, EOF, NONE, END);
+
+        // 2: '/', '/=' ou comentário
+        otherwise(2, UNGET, SYMBOL);
+        on(2, EQUAL, APPEND, SYMBOL);
+        on(2, SLASH, MARK, 3);
+
+        // 3: comentário até o fim da linha
+        otherwise(3, NONE, 3);
+        on(3, NEWLINE, LINE, 1);
+        on(3, EOF, NONE, END);
+
+        // 4: '*', '*=' ou '**'
+        otherwise(4, UNGET, SYMBOL);
+        on(4, EQUAL, APPEND, SYMBOL);
+        on(4, STAR, APPEND, 5);
+
+        // 5: operador seguido opcionalmente de '='
+        otherwise(5, UNGET, SYMBOL);
+        on(5, EQUAL, APPEND, SYMBOL);
+
+        // 6: '-', '-=' ou '->'
+        otherwise(6, UNGET, SYMBOL);
+        on(6, EQUAL, APPEND, SYMBOL);
+        on(6, GREATER, APPEND, SYMBOL);
+
+        // 7 e 8: '!', '!=' ou '!in'
+        otherwise(7, UNGET, SYMBOL);
+        on(7, EQUAL, APPEND, SYMBOL);
+        on(7, LETTER_I, NONE, 8);
+        otherwise(8, UNGET_I, SYMBOL);
+        on(8, LETTER_N, APPEND_IN, SYMBOL);
+
+        // 9 e 10: '&&' e '||'
+        otherwise(9, NONE, INVALID);
+        on(9, AMPERSAND, APPEND, SYMBOL);
+        otherwise(10, NONE, INVALID);
+        on(10, PIPE, APPEND, SYMBOL);
+
+        // 11: nomes e palavras reservadas
+        otherwise(11, UNGET, SYMBOL);
+        on(11, LETTER, APPEND, 11);
+        on(11, LETTER_I, APPEND, 11);
+        on(11, LETTER_N, APPEND, 11);
+        on(11, DIGIT, APPEND, 11);
+
+        // 12: números
+        otherwise(12, UNGET, NUMBER);
+        on(12, DIGIT, APPEND, 12);
+
+        // 13: strings
+        otherwise(13, APPEND, 13);
+        on(13, QUOTE, NONE, TEXT);
+    }
+
+    private static void on(int state, int cls, int action, int next) {
+        TRANSITIONS[state * CLASSES + cls] = (short) (action << 8 | next);
+    }
+
+    private static void otherwise(int state, int action, int next) {
+        for (int cls = 0; cls < CLASSES; cls++)
+            on(state, cls, action, next);
+    }
+
     private int line;
     private SymbolTable st;
-    private PushbackInputStream input;
+    private ByteBuffer input;
+    private Closeable source;
 
+    // O arquivo é mapeado em memória e lido diretamente do buffer mapeado.
     public LexicalAnalysis(String filename) {
         try {
-            input = new PushbackInputStream(new FileInputStream(filename), 2);
+            FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ);
+            source = channel;
+            input = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
         } catch (Exception e) {
             throw new LexicalException("Unable to open file");
         }
@@ -20,9 +203,32 @@ public class LexicalAnalysis implements AutoCloseable {
         line = 1;
     }
 
+    // Para entradas que não podem ser mapeadas, como a entrada padrão.
+    public LexicalAnalysis(InputStream stream) {
+        try {
+            source = stream;
+            input = ByteBuffer.wrap(stream.readAllBytes());
+        } catch (Exception e) {
+            throw new LexicalException("Unable to read file");
+        }
+
+        st = new SymbolTable();
+        line = 1;
+    }
+
+    // Para um conteúdo já lido, como o fonte do qual o AstCache calculou o
+    // checksum.
+    public LexicalAnalysis(ByteBuffer input) {
+        this.input = input;
+
+        st = new SymbolTable();
+        line = 1;
+    }
+
     public void close() {
         try {
-            input.close();
+            if (source != null)
+                source.close();
         } catch (Exception e) {
             throw new LexicalException("Unable to close file");
         }
@@ -33,226 +239,63 @@ public class LexicalAnalysis implements AutoCloseable {
     }
 
     public Lexeme nextToken() {
-        Lexeme lex = new Lexeme("", TokenType.END_OF_FILE);
+        Lexeme lex = new Lexeme(input, input.position(), TokenType.END_OF_FILE);
 
         int state = 1;
-        while (state != 14 && state != 15) {
+        while (state < SYMBOL) {
             int c = getc();
+            int t = TRANSITIONS[state * CLASSES + CHAR_CLASS[c + 1]];
             // System.out.printf(" [%02d, %03d ('%c')]\n",
             // state, c, (char) c);
 
-            switch (state) {
-                case 1:
-                    if (c == ' ' || c == '\t' || c == '\r') {
-                        state = 1;
-                    } else if (c == '\n') {
-                        line++;
-                        state = 1;
-                    } else if (c == '/') {
-                        lex.token += (char) c;
-                        state = 2;
-                    } else if (c == '*') {
-                        lex.token += (char) c;
-                        state = 4;
-                    } else if (c == '+' || c == '=' || c == '<' || c == '>' || c == '%') {
-                        lex.token += (char) c;
-                        state = 5;
-                    } else if (c == '-') {
-                        lex.token += (char) c;
-                        state = 6;
-                    } else if (c == '.' || c == ',' || c == ';' || c == ':' ||
-                            c == '(' || c == ')' || c == '[' || c == ']' ||
-                            c == '{' || c == '}') {
-                        lex.token += (char) c;
-                        state = 14;
-                    } else if (c == '!') {
-                        lex.token += (char) c;
-                        state = 7;
-                    } else if (c == '&') {
-                        lex.token += (char) c;
-                        state = 9;
-                    } else if (c == '|') {
-                        lex.token += (char) c;
-                        state = 10;
-                    } else if (c == '\'') {
-                        state = 13;
-                    } else if (c == '_' || c == '$' || Character.isLetter(c)) {
-                        lex.token += (char) c;
-                        state = 11;
-                    } else if (Character.isDigit(c)) {
-                        lex.token += (char) c;
-                        state = 12;
-                    } else if (c == -1) {
-                        lex.type = TokenType.END_OF_FILE;
-                        state = 15;
-                    } else {
-                        lex.token += (char) c;
-                        lex.type = TokenType.INVALID_TOKEN;
-                        state = 15;
-                    }
-
-                    // System.out.println("CASE 1: " + lex.token);
-
+            switch (t >>> 8) {
+                case NONE:
                     break;
-                case 2:
-                    if (c == '=') {
-                        lex.token += (char) c;
-                        state = 14;
-                    } else if (c == '/') {
-                        lex.token = "";
-                        state = 3;
-                    } else {
-                        ungetc(c);
-                        state = 14;
-                    }
-
+                case LINE:
+                    line++;
                     break;
-                case 3:
-                    if (c == '\n') {
-                        line++;
-                        state = 1;
-                    } else if (c == -1) {
-                        lex.type = TokenType.END_OF_FILE;
-                        state = 15;
-                    } else {
-                        state = 3;
-                    }
-
+                case START:
+                    lex.start(input.position() - 1);
+                    lex.append(1);
                     break;
-                case 4:
-                    if (c == '=') {
-                        lex.token += (char) c;
-                        state = 14;
-                    } else if (c == '*') {
-                        lex.token += (char) c;
-                        state = 5;
-                    } else {
-                        ungetc(c);
-                        state = 14;
-                    }
-
+                case MARK:
+                    lex.start(input.position());
                     break;
-                case 5:
-                    if (c == '=') {
-                        lex.token += (char) c;
-                        state = 14;
-                    } else {
-                        ungetc(c);
-                        state = 14;
-                    }
-
+                case APPEND:
+                    lex.append(1);
                     break;
-                case 6:
-                    if (c == '=' || c == '>') {
-                        lex.token += (char) c;
-                        state = 14;
-                    } else {
-                        ungetc(c);
-                        state = 14;
-                    }
-
+                case APPEND_IN:
+                    lex.append(2);
                     break;
-                case 7:
-                    if (c == '=') {
-                        lex.token += (char) c;
-                        state = 14;
-                    } else if (c == 'i') {
-                        state = 8;
-                    } else {
-                        ungetc(c);
-                        state = 14;
-                    }
-
+                case UNGET:
+                    ungetc(c);
                     break;
-                case 8:
-                    if (c == 'n') {
-                        lex.token += "in";
-                        state = 14;
-                    } else {
-                        ungetc(c);
-                        ungetc('i');
-                        state = 14;
-                    }
-
-                    break;
-                case 9:
-                    if (c == '&') {
-                        lex.token += (char) c;
-                        state = 14;
-                    } else {
-                        lex.type = TokenType.INVALID_TOKEN;
-                        state = 15;
-                    }
-
-                    break;
-                case 10:
-                    if (c == '|') {
-                        lex.token += (char) c;
-                        state = 14;
-                    } else {
-                        lex.type = TokenType.INVALID_TOKEN;
-                        state = 15;
-                    }
-
-                    break;
-                case 11:
-                    if (c == '$' || c == '_' ||
-                            Character.isLetter(c) || Character.isDigit(c)) {
-                        lex.token += (char) c;
-                        state = 11;
-                    } else {
-                        ungetc(c);
-                        state = 14;
-                    }
-
-                    break;
-                case 12:
-                    if (Character.isDigit(c)) {
-                        lex.token += (char) c;
-                        state = 12;
-                    } else {
-                        ungetc(c);
-                        lex.type = TokenType.NUMBER;
-                        state = 15;
-                    }
-
-                    break;
-                case 13:
-                    if (c != '\'') {
-                        lex.token += (char) c;
-                        state = 13;
-                    } else {
-                        lex.type = TokenType.TEXT;
-                        state = 15;
-                    }
-
+                case UNGET_I:
+                    ungetc(c);
+                    ungetc('i');
                     break;
                 default:
                     throw new LexicalException("Unreachable");
             }
+
+            state = t & 0xff;
         }
 
-        if (state == 14)
-            lex.type = st.find(lex.token);
+        if (state == SYMBOL)
+            lex.type = st.find(input, lex.getStart(), lex.getLength());
+        else
+            lex.type = ACCEPT[state - SYMBOL];
 
         return lex;
     }
 
     private int getc() {
-        try {
-            return input.read();
-        } catch (Exception e) {
-            throw new LexicalException("Unable to read file");
-        }
+        return input.hasRemaining() ? input.get() & 0xff : -1;
     }
 
     private void ungetc(int c) {
         if (c != -1) {
-            try {
-                input.unread(c);
-            } catch (Exception e) {
-                throw new LexicalException("Unable to ungetc");
-            }
+            input.position(input.position() - 1);
         }
     }
 }
\ No newline at end of file
@@ -1,15 +1,26 @@
 package lexical;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
 public class SymbolTable {
 
-    private Map<String, TokenType> st;
+    private static final int SIZE = 512;
 
-    public SymbolTable() {
-        st = new HashMap<String, TokenType>();
+    private static final Map<String, TokenType> st = new HashMap<String, TokenType>();
+
+    // Hash perfeito sobre os bytes do lexema: a semente é escolhida de forma
+    // que nenhum par de símbolos caia na mesma posição, então uma busca é um
+    // único cálculo de hash seguido de uma comparação de bytes. Os símbolos
+    // são fixos, então a busca pela semente é feita uma vez, quando a classe
+    // é carregada, e a tabela é compartilhada por todos os analisadores.
+    private static int seed;
+    private static byte[][] keys;
+    private static TokenType[] types;
 
+    static {
         // SYMBOLS
         st.put(";", TokenType.SEMI_COLON);
         st.put(":", TokenType.COLON);
@@ -73,6 +84,42 @@ public class SymbolTable {
         st.put("switch", TokenType.SWITCH);
         st.put("case", TokenType.CASE);
         st.put("default", TokenType.DEFAULT);
+
+        build();
+    }
+
+    public SymbolTable() {
+    }
+
+    private static void build() {
+        for (seed = 0x811c9dc5;; seed++) {
+            keys = new byte[SIZE][];
+            types = new TokenType[SIZE];
+
+            boolean collision = false;
+            for (Map.Entry<String, TokenType> e : st.entrySet()) {
+                byte[] key = e.getKey().getBytes(StandardCharsets.ISO_8859_1);
+                int h = hash(ByteBuffer.wrap(key), 0, key.length);
+                if (keys[h] != null) {
+                    collision = true;
+                    break;
+                }
+
+                keys[h] = key;
+                types[h] = e.getValue();
+            }
+
+            if (!collision)
+                return;
+        }
+    }
+
+    private static int hash(ByteBuffer buffer, int start, int length) {
+        int h = seed;
+        for (int i = start; i < start + length; i++)
+            h = (h ^ (buffer.get(i) & 0xff)) * 0x01000193;
+
+        return (h ^ (h >>> 16)) & (SIZE - 1);
     }
 
     public boolean contains(String token) {
@@ -80,6 +127,22 @@ public class SymbolTable {
     }
 
     public TokenType find(String token) {
-        return this.contains(token) ? st.get(token) : TokenType.NAME;
+        byte[] bytes = token.getBytes(StandardCharsets.ISO_8859_1);
+        return find(ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    public TokenType find(ByteBuffer buffer, int start, int length) {
+        int h = hash(buffer, start, length);
+
+        byte[] key = keys[h];
+        if (key == null || key.length != length)
+            return TokenType.NAME;
+
+        for (int i = 0; i < length; i++) {
+            if (key[i] != buffer.get(start + i))
+                return TokenType.NAME;
+        }
+
+        return types[h];
     }
 }
@@ -1,22 +1,291 @@
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import interpreter.Interpreter;
+import interpreter.cache.AstCache;
+import interpreter.cache.TreeCache;
 import interpreter.command.Command;
+import interpreter.daemon.Client;
+import interpreter.daemon.Daemon;
+import interpreter.expr.Expr;
+import interpreter.expr.UnaryExpr;
+import interpreter.expr.Variable;
+import interpreter.optimizer.AstTransformer;
+import interpreter.optimizer.Optimizer;
+import interpreter.util.AbortException;
+import interpreter.util.BudgetExceededException;
+import interpreter.util.ChannelSink;
+import interpreter.util.InputSource;
+import interpreter.util.MappedInput;
+import interpreter.util.OutputSink;
+import interpreter.util.ReaderInput;
+import interpreter.util.Resolver;
 import lexical.LexicalAnalysis;
 import syntatic.SyntaticAnalysis;
+import syntatic.SyntaticException;
 
 public class mgi {
 
     public static void main(String[] args) {
-        if (args.length != 1) {
-            System.out.println("Usage: java mgi [miniGroovy file]");
+        // Com --daemon SOCKET, o processo fica no ar executando os scripts
+        // enviados por mgi --connect SOCKET, que aceita as mesmas opções.
+        if (args.length >= 2 && args[0].equals("--daemon")) {
+            TreeCache trees = new TreeCache();
+            try {
+                new Daemon(Paths.get(args[1]), (a, out, err, in) -> run(a, out, err, in, trees)).serve();
+            } catch (IOException e) {
+                System.err.println("Internal error: " + e.getMessage());
+                System.exit(1);
+            }
+
             return;
         }
 
-        try (LexicalAnalysis l = new LexicalAnalysis(args[0])) {
+        int status;
+        if (args.length >= 2 && args[0].equals("--connect")) {
+            try {
+                status = Client.run(Paths.get(args[1]), forward(Arrays.copyOfRange(args, 2, args.length)));
+            } catch (IOException e) {
+                System.err.println("Internal error: " + e.getMessage());
+                status = 1;
+            }
+        } else {
+            status = run(args, Channels.newChannel(new FileOutputStream(FileDescriptor.out)), System.err, System.in, null);
+        }
+
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+
+    // Executa um script conforme as opções e devolve o código de saída. No
+    // daemon, trees guarda as árvores entre execuções; na linha de comando
+    // é null.
+    private static int run(String[] args, WritableByteChannel out, PrintStream err, InputStream stdin,
+            TreeCache trees) {
+        boolean mapMemory = false;
+        boolean useCache = true;
+        boolean optimize = true;
+        boolean optimizerStats = false;
+        boolean persistent = false;
+        long maxLoops = 0;
+        long timeout = 0;
+        ChannelSink.Flush flush = null;
+        String input = null;
+        String filename = null;
+
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--map-memory")) {
+                mapMemory = true;
+            } else if (arg.equals("--no-cache")) {
+                useCache = false;
+            } else if (arg.equals("--no-optimize")) {
+                optimize = false;
+            } else if (arg.equals("--optimizer-stats")) {
+                optimizerStats = true;
+            } else if (arg.equals("--persistent-arrays")) {
+                persistent = true;
+            } else if (arg.equals("--flush=line")) {
+                flush = ChannelSink.Flush.Line;
+            } else if (arg.equals("--flush=block")) {
+                flush = ChannelSink.Flush.Block;
+            } else if (arg.equals("--input") && i + 1 < args.length) {
+                input = args[++i];
+            } else if (arg.equals("--max-loops") && i + 1 < args.length && isLimit(args[i + 1])) {
+                maxLoops = Long.parseLong(args[++i]);
+            } else if (arg.equals("--timeout") && i + 1 < args.length && isLimit(args[i + 1])) {
+                timeout = Long.parseLong(args[++i]);
+            } else if (filename == null && !arg.startsWith("--")) {
+                filename = arg;
+            } else {
+                filename = null;
+                break;
+            }
+        }
+
+        // Sem --flush, a saída é esvaziada a cada linha só quando há um
+        // terminal; redirecionada, ela é escrita em blocos.
+        if (flush == null) {
+            flush = System.console() != null ? ChannelSink.Flush.Line : ChannelSink.Flush.Block;
+        }
+
+        OutputSink output = new ChannelSink(out, ChannelSink.stdoutCharset(), flush);
+
+        if (filename == null) {
+            output.print("Usage: java mgi [--daemon SOCKET | --connect SOCKET] [--map-memory] [--no-cache] [--no-optimize] [--optimizer-stats] [--persistent-arrays] [--flush=line|block] [--input FILE] [--max-loops N] [--timeout MS] [miniGroovy file]");
+            output.println();
+            output.flush();
+            return 0;
+        }
+
+        try {
+            // Com --input, read() consome as linhas do arquivo mapeado em
+            // memória em vez da entrada padrão.
+            InputSource source = input != null ? new MappedInput(input) : new ReaderInput(stdin);
+            Interpreter in = new Interpreter(output, source);
+            // No daemon, os pedidos dividem as threads do ScriptExecutor.
+            in.setCooperative(trees != null);
+            in.setPersistentArrays(persistent);
+            in.setLoopBudget(maxLoops);
+            in.setTimeout(timeout);
+
+            // A árvore de um script já analisado é lida do .mgic ao lado do
+            // fonte, desde que o conteúdo do fonte não tenha mudado.
+            AstCache cache = useCache && !filename.equals("-") ? new AstCache(filename) : null;
+
+            // No daemon, a árvore pronta para executar fica em memória.
+            String variant = (optimize ? "optimized" : "plain") + (mapMemory ? ",map" : ",slots");
+            TreeCache.Entry entry = trees != null && cache != null && !optimizerStats ? trees.get(cache, variant) : null;
+
+            if (entry == null) {
+                List<Variable> variables = new ArrayList<Variable>();
+                Command c;
+                try {
+                    c = load(filename, cache, variables, stdin);
+                } catch (SyntaticException | AbortException e) {
+                    output.print(e.getMessage());
+                    output.println();
+                    output.flush();
+                    return 1;
+                }
+
+                // Com o programa em "-", o analisador léxico lê a entrada
+                // padrão até o fim, então um read() não teria mais o que
+                // ler; as linhas precisam vir de --input.
+                if (filename.equals("-") && input == null && reads(c)) {
+                    output.flush();
+                    err.println("read() needs --input FILE when the program is read from standard input");
+                    return 1;
+                }
+
+                // O .mgic guarda a árvore original; os passes do otimizador
+                // são aplicados depois de carregá-la.
+                if (optimize) {
+                    Optimizer optimizer = Optimizer.standard();
+                    c = optimizer.optimize(c);
+                    if (optimizerStats) {
+                        optimizer.printStats(err);
+                    }
+                }
+
+                // Sem --map-memory, cada variável é resolvida para um slot do
+                // frame e o acesso vira uma leitura de arranjo.
+                int frame = 0;
+                if (!mapMemory) {
+                    Resolver r = new Resolver();
+                    frame = r.resolve(variables);
+                }
+
+                entry = new TreeCache.Entry(c, frame);
+                if (trees != null && cache != null) {
+                    trees.put(cache, variant, entry);
+                }
+            }
+
+            if (!mapMemory) {
+                in.getMemory().allocate(entry.getFrame());
+            }
+
+            in.execute(entry.getCommand());
+        } catch (AbortException e) {
+            // A mensagem já foi impressa pelo Interpreter.
+            output.flush();
+            return 1;
+        } catch (BudgetExceededException e) {
+            // Com --max-loops ou --timeout, o script é interrompido no
+            // próximo ponto de parada depois de passar do limite.
+            output.flush();
+            err.println(e.getMessage());
+            return 2;
+        } catch (Exception e) {
+            output.flush();
+            err.println("Internal error: " + e.getMessage());
+        } finally {
+            output.flush();
+        }
+
+        return 0;
+    }
+
+    // O daemon roda em outro diretório: os caminhos vão absolutos. O modo
+    // de flush padrão é o do terminal do cliente, não o do daemon.
+    private static String[] forward(String[] args) {
+        List<String> list = new ArrayList<String>();
+        boolean flush = false;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--input") && i + 1 < args.length) {
+                list.add(arg);
+                arg = Paths.get(args[++i]).toAbsolutePath().toString();
+            } else if ((arg.equals("--max-loops") || arg.equals("--timeout")) && i + 1 < args.length) {
+                list.add(arg);
+                arg = args[++i];
+            } else if (arg.startsWith("--flush=")) {
+                flush = true;
+            } else if (!arg.startsWith("--") && !arg.equals("-")) {
+                arg = Paths.get(arg).toAbsolutePath().toString();
+            }
+
+            list.add(arg);
+        }
+
+        if (!flush) {
+            list.add(0, System.console() != null ? "--flush=line" : "--flush=block");
+        }
+
+        return list.toArray(new String[0]);
+    }
+
+    // Se algum read() aparece na árvore, mesmo num ramo que não executa.
+    private static boolean reads(Command c) {
+        boolean[] found = { false };
+        new AstTransformer() {
+            @Override
+            protected Expr rewrite(Expr expr) {
+                if (expr instanceof UnaryExpr && ((UnaryExpr) expr).getOp() == UnaryExpr.Op.ReadOp) {
+                    found[0] = true;
+                }
+
+                return expr;
+            }
+        }.command(c);
+
+        return found[0];
+    }
+
+    private static boolean isLimit(String arg) {
+        return arg.matches("[0-9]{1,18}");
+    }
+
+    private static Command load(String filename, AstCache cache, List<Variable> variables, InputStream stdin) {
+        Command c = cache != null ? cache.load(variables) : null;
+        if (c != null) {
+            return c;
+        }
+
+        // "-" lê o programa da entrada padrão. Com o cache, a análise usa os
+        // bytes dos quais o checksum gravado no .mgic foi calculado.
+        ByteBuffer contents = cache != null ? cache.contents() : null;
+        try (LexicalAnalysis l = contents != null ? new LexicalAnalysis(contents)
+                : filename.equals("-") ? new LexicalAnalysis(stdin)
+                : new LexicalAnalysis(filename)) {
 
             // O código a seguir é dado para testar o interpretador.
             // TODO: descomentar depois que o analisador léxico estiver OK.
             SyntaticAnalysis s = new SyntaticAnalysis(l);
-            Command c = s.start();
-            c.execute();
+            c = s.start();
+            variables.addAll(s.getVariables());
 
             // O código a seguir é usado apenas para testar o analisador léxico.
             // TODO: depois de pronto, comentar o código abaixo.
@@ -28,9 +297,13 @@ public class mgi {
             // } while (lex.type != TokenType.END_OF_FILE &&
             // lex.type != TokenType.INVALID_TOKEN &&
             // lex.type != TokenType.UNEXPECTED_EOF);
-        } catch (Exception e) {
-            System.err.println("Internal error: " + e.getMessage());
         }
+
+        if (contents != null) {
+            cache.store(c);
+        }
+
+        return c;
     }
 
 }
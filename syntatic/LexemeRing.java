@@ -0,0 +1,43 @@
+package syntatic;
+
+import lexical.Lexeme;
+
+// Pilha de tamanho fixo: ao passar da capacidade, o lexema mais antigo é
+// descartado. Basta para o retrocesso limitado que a gramática precisa.
+class LexemeRing {
+
+    private static final int CAPACITY = 4;
+
+    private Lexeme[] items;
+    private int top;
+    private int size;
+
+    LexemeRing() {
+        items = new Lexeme[CAPACITY];
+        top = 0;
+        size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void push(Lexeme lex) {
+        items[top] = lex;
+        top = (top + 1) & (CAPACITY - 1);
+        if (size < CAPACITY)
+            size++;
+    }
+
+    Lexeme pop() {
+        assert size > 0;
+
+        top = (top - 1) & (CAPACITY - 1);
+        size--;
+
+        Lexeme lex = items[top];
+        items[top] = null;
+        return lex;
+    }
+
+}
@@ -2,7 +2,6 @@ package syntatic;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Stack;
 
 import interpreter.command.AssignCommand;
 import interpreter.command.BlocksCommand;
@@ -34,6 +33,7 @@ import interpreter.value.BooleanValue;
 import interpreter.value.NumberValue;
 import interpreter.value.TextValue;
 import interpreter.value.Value;
+import interpreter.value.ValueFactory;
 import lexical.Lexeme;
 import lexical.LexicalAnalysis;
 import lexical.TokenType;
@@ -42,14 +42,16 @@ public class SyntaticAnalysis {
 
     private LexicalAnalysis lex;
     private Lexeme current;
-    private Stack<Lexeme> history;
-    private Stack<Lexeme> queued;
+    private LexemeRing history;
+    private LexemeRing queued;
+    private List<Variable> variables;
 
     public SyntaticAnalysis(LexicalAnalysis lex) {
         this.lex = lex;
         this.current = lex.nextToken();
-        this.history = new Stack<Lexeme>();
-        this.queued = new Stack<Lexeme>();
+        this.history = new LexemeRing();
+        this.queued = new LexemeRing();
+        this.variables = new ArrayList<Variable>();
     }
 
     public Command start() {
@@ -58,6 +60,10 @@ public class SyntaticAnalysis {
         return cmd;
     }
 
+    public List<Variable> getVariables() {
+        return variables;
+    }
+
     private void rollback() {
         assert !history.isEmpty();
 
@@ -70,7 +76,7 @@ public class SyntaticAnalysis {
     private void advance() {
         // System.out.println("Advanced (\"" + current.token + "\", " +
         // current.type + ")");
-        history.add(current);
+        history.push(current);
         current = queued.isEmpty() ? lex.nextToken() : queued.pop();
     }
 
@@ -78,7 +84,7 @@ public class SyntaticAnalysis {
         // System.out.println("Expected (..., " + type + "), found (\"" +
         // current.token + "\", " + current.type + ")");
         if (type == current.type) {
-            history.add(current);
+            history.push(current);
             current = queued.isEmpty() ? lex.nextToken() : queued.pop();
         } else {
             showError();
@@ -86,22 +92,21 @@ public class SyntaticAnalysis {
     }
 
     private void showError() {
-        System.out.printf("%02d: ", lex.getLine());
-
+        String msg;
         switch (current.type) {
             case INVALID_TOKEN:
-                System.out.printf("Lexema inválido [%s]\n", current.token);
+                msg = String.format("Lexema inválido [%s]", current.token());
                 break;
             case UNEXPECTED_EOF:
             case END_OF_FILE:
-                System.out.printf("Fim de arquivo inesperado\n");
+                msg = "Fim de arquivo inesperado";
                 break;
             default:
-                System.out.printf("Lexema não esperado [%s]\n", current.token);
+                msg = String.format("Lexema não esperado [%s]", current.token());
                 break;
         }
 
-        System.exit(1);
+        throw new SyntaticException(String.format("%02d: %s", lex.getLine(), msg));
     }
 
     // <code> ::= { <cmd> }
@@ -215,7 +220,7 @@ public class SyntaticAnalysis {
 
     // <decl-type1> ::= <name> [ '=' <expr> ] { ',' <name> [ '=' <expr> ] }
     private DeclarationType1Command procDeclType1() {
-        Variable lhs = procName();
+        Variable lhs = procVariable();
         int line = lex.getLine();
 
         Expr rhs = null;
@@ -227,7 +232,7 @@ public class SyntaticAnalysis {
 
         while (current.type == TokenType.COMMA) {
             advance();
-            lhs = procName();
+            lhs = procVariable();
 
             if (current.type == TokenType.ASSIGN) {
                 advance();
@@ -246,12 +251,12 @@ public class SyntaticAnalysis {
         List<Variable> lhs = new ArrayList<Variable>();
         int line = lex.getLine();
 
-        Variable v = procName();
+        Variable v = procVariable();
         lhs.add(v);
 
         while (current.type == TokenType.COMMA) {
             advance();
-            v = procName();
+            v = procVariable();
             lhs.add(v);
         }
 
@@ -401,7 +406,7 @@ public class SyntaticAnalysis {
             advance();
         }
 
-        Variable var = procName();
+        Variable var = procVariable();
         eat(TokenType.CONTAINS);
         Expr expr = procExpr();
 
@@ -478,212 +483,133 @@ public class SyntaticAnalysis {
 
     }
 
-    // <expr> ::= <rel> { ('&&' | '||') <rel> }
-    private Expr procExpr() {
-        Expr left = procRel();
-
-        while (current.type == TokenType.AND ||
-                current.type == TokenType.OR) {
-
-            BinaryExpr.Op op = null;
-
-            switch (current.type) {
-                case AND:
-                    advance();
-                    op = BinaryExpr.Op.AndOp;
-                    break;
-                case OR:
-                    advance();
-                    op = BinaryExpr.Op.OrOp;
-                    break;
-                default:
-                    showError();
-            }
-
-            int line = lex.getLine();
-
-            Expr right = procRel();
-
-            BinaryExpr bexpr = new BinaryExpr(line, left, op, right);
-
-            left = bexpr;
-        }
-
-        return left;
-    }
-
-    // <rel> ::= <cast> [ ('<' | '>' | '<=' | '>=' | '==' | '!=' | in | '!in')
+    // <expr>  ::= <rel> { ('&&' | '||') <rel> }
+    // <rel>   ::= <cast> [ ('<' | '>' | '<=' | '>=' | '==' | '!=' | in | '!in')
     // <cast> ]
-    private Expr procRel() {
-        Expr left = procCast();
-
-        if (current.type == TokenType.LOWER ||
-                current.type == TokenType.GREATER ||
-                current.type == TokenType.LOWER_EQUAL ||
-                current.type == TokenType.GREATER_EQUAL ||
-                current.type == TokenType.EQUALS ||
-                current.type == TokenType.NOT_EQUALS ||
-                current.type == TokenType.CONTAINS ||
-                current.type == TokenType.NOT_CONTAINS) {
-
-            BinaryExpr.Op op = null;
-
-            switch (current.type) {
-                case LOWER:
-                    advance();
-                    op = BinaryExpr.Op.LowerThanOp;
-                    break;
-                case GREATER:
-                    advance();
-                    op = BinaryExpr.Op.GreaterThanOp;
-                    break;
-                case LOWER_EQUAL:
-                    advance();
-                    op = BinaryExpr.Op.LowerEqualOp;
-                    break;
-                case GREATER_EQUAL:
-                    advance();
-                    op = BinaryExpr.Op.GreaterEqualOp;
-                    break;
-                case EQUALS:
-                    advance();
-                    op = BinaryExpr.Op.EqualOp;
-                    break;
-                case NOT_EQUALS:
-                    advance();
-                    op = BinaryExpr.Op.NotEqualOp;
-                    break;
-                case CONTAINS:
-                    advance();
-                    op = BinaryExpr.Op.ContainsOp;
-                    break;
-                case NOT_CONTAINS:
-                    advance();
-                    op = BinaryExpr.Op.NotContainsOp;
-                    break;
-                default:
-                    showError();
-            }
-
-            int line = lex.getLine();
-
-            Expr right = procCast();
-
-            BinaryExpr bexpr = new BinaryExpr(line, left, op, right);
-
-            left = bexpr;
-
-        }
-
-        return left;
+    // <cast>  ::= <arith> [ as (Boolean | Integer | String) ]
+    // <arith> ::= <term> { ('+' | '-') <term> }
+    // <term>  ::= <power> { ('*' | '/' | '%') <power> }
+    // <power> ::= <factor> { '**' <factor> }
+    private Expr procExpr() {
+        return procBinary(1);
     }
 
-    // <cast> ::= <arith> [ as (Boolean | Integer | String) ]
-    private Expr procCast() {
-        Expr left = procArith();
+    // Precedence climbing sobre os níveis da gramática acima. O teto impede
+    // que o laço continue depois de um operador relacional (que não é
+    // associativo) ou de um cast (aplicado uma única vez ao <arith>).
+    private Expr procBinary(int min) {
+        Expr left = procFactor();
+        int ceiling = 6;
 
-        if (current.type == TokenType.AS) {
-            advance();
+        while (true) {
+            int prec = precedence(current.type);
+            if (prec < min || prec > ceiling)
+                break;
 
-            if (current.type == TokenType.BOOLEAN) {
-                advance();
-                left = new CastExpr(lex.getLine(), left, Op.BooleanOp);
-            } else if (current.type == TokenType.INTEGER) {
-                advance();
-                left = new CastExpr(lex.getLine(), left, Op.IntegerOp);
-            } else if (current.type == TokenType.STRING) {
-                advance();
-                left = new CastExpr(lex.getLine(), left, Op.StringOp);
-            } else {
-                showError();
+            if (prec == 3) {
+                left = procCast(left);
+                ceiling = 2;
+                continue;
             }
-        }
-
-        return left;
-    }
 
-    // <arith> ::= <term> { ('+' | '-') <term> }
-    private Expr procArith() {
-        Expr left = procTerm();
-
-        while (current.type == TokenType.ADD || current.type == TokenType.SUB) {
-            BinaryExpr.Op op;
+            BinaryExpr.Op op = binaryOp(current.type);
+            advance();
 
-            switch (current.type) {
-                case ADD:
-                    advance();
-                    op = BinaryExpr.Op.AddOp;
-                    break;
-                case SUB:
-                default:
-                    advance();
-                    op = BinaryExpr.Op.SubOp;
-                    break;
-            }
             int line = lex.getLine();
 
-            Expr right = procTerm();
+            Expr right = procBinary(prec + 1);
 
             BinaryExpr bexpr = new BinaryExpr(line, left, op, right);
 
             left = bexpr;
+            ceiling = prec == 2 ? 1 : prec;
         }
 
         return left;
     }
 
-    // <term> ::= <power> { ('*' | '/' | '%') <power> }
-    private Expr procTerm() {
-        Expr left = procPower();
-
-        while (current.type == TokenType.MUL ||
-                current.type == TokenType.DIV ||
-                current.type == TokenType.MOD) {
-
-            BinaryExpr.Op op;
-
-            switch (current.type) {
-                case MUL:
-                    advance();
-                    op = BinaryExpr.Op.MulOp;
-                    break;
-                case DIV:
-                    advance();
-                    op = BinaryExpr.Op.DivOp;
-                    break;
-                case MOD:
-                default:
-                    advance();
-                    op = BinaryExpr.Op.ModOp;
-                    break;
-            }
-
-            int line = lex.getLine();
-
-            Expr right = procPower();
-
-            BinaryExpr bexpr = new BinaryExpr(line, left, op, right);
-
-            left = bexpr;
+    private static int precedence(TokenType type) {
+        switch (type) {
+            case AND:
+            case OR:
+                return 1;
+            case LOWER:
+            case GREATER:
+            case LOWER_EQUAL:
+            case GREATER_EQUAL:
+            case EQUALS:
+            case NOT_EQUALS:
+            case CONTAINS:
+            case NOT_CONTAINS:
+                return 2;
+            case AS:
+                return 3;
+            case ADD:
+            case SUB:
+                return 4;
+            case MUL:
+            case DIV:
+            case MOD:
+                return 5;
+            case POWER:
+                return 6;
+            default:
+                return 0;
+        }
+    }
+
+    private static BinaryExpr.Op binaryOp(TokenType type) {
+        switch (type) {
+            case AND:
+                return BinaryExpr.Op.AndOp;
+            case OR:
+                return BinaryExpr.Op.OrOp;
+            case LOWER:
+                return BinaryExpr.Op.LowerThanOp;
+            case GREATER:
+                return BinaryExpr.Op.GreaterThanOp;
+            case LOWER_EQUAL:
+                return BinaryExpr.Op.LowerEqualOp;
+            case GREATER_EQUAL:
+                return BinaryExpr.Op.GreaterEqualOp;
+            case EQUALS:
+                return BinaryExpr.Op.EqualOp;
+            case NOT_EQUALS:
+                return BinaryExpr.Op.NotEqualOp;
+            case CONTAINS:
+                return BinaryExpr.Op.ContainsOp;
+            case NOT_CONTAINS:
+                return BinaryExpr.Op.NotContainsOp;
+            case ADD:
+                return BinaryExpr.Op.AddOp;
+            case SUB:
+                return BinaryExpr.Op.SubOp;
+            case MUL:
+                return BinaryExpr.Op.MulOp;
+            case DIV:
+                return BinaryExpr.Op.DivOp;
+            case MOD:
+                return BinaryExpr.Op.ModOp;
+            case POWER:
+            default:
+                return BinaryExpr.Op.PowerOp;
         }
-
-        return left;
     }
 
-    // <power> ::= <factor> { '**' <factor> }
-    private Expr procPower() {
-        Expr left = procFactor();
+    private Expr procCast(Expr left) {
+        eat(TokenType.AS);
 
-        while (current.type == TokenType.POWER) {
+        if (current.type == TokenType.BOOLEAN) {
             advance();
-
-            int line = lex.getLine();
-
-            Expr right = procFactor();
-
-            BinaryExpr bexpr = new BinaryExpr(line, left, BinaryExpr.Op.PowerOp, right);
-
-            left = bexpr;
+            left = new CastExpr(lex.getLine(), left, Op.BooleanOp);
+        } else if (current.type == TokenType.INTEGER) {
+            advance();
+            left = new CastExpr(lex.getLine(), left, Op.IntegerOp);
+        } else if (current.type == TokenType.STRING) {
+            advance();
+            left = new CastExpr(lex.getLine(), left, Op.StringOp);
+        } else {
+            showError();
         }
 
         return left;
@@ -722,7 +648,7 @@ public class SyntaticAnalysis {
 
     // <lvalue> ::= <name> { '.' <name> | '[' <expr> ']' }
     private SetExpr procLvalue() {
-        SetExpr base = procName();
+        SetExpr base = procVariable();
 
         while (current.type == TokenType.DOT ||
                 current.type == TokenType.OPEN_BRA) {
@@ -793,11 +719,11 @@ public class SyntaticAnalysis {
             advance();
         } else if (current.type == TokenType.FALSE) {
             advance();
-            BooleanValue bv = new BooleanValue(false);
+            BooleanValue bv = ValueFactory.bool(false);
             value = bv;
         } else if (current.type == TokenType.TRUE) {
             advance();
-            BooleanValue bv = new BooleanValue(true);
+            BooleanValue bv = ValueFactory.bool(true);
             value = bv;
         } else if (current.type == TokenType.NUMBER) {
             NumberValue nv = procNumber();
@@ -962,29 +888,29 @@ public class SyntaticAnalysis {
     }
 
     private Variable procName() {
-        String tmp = current.token;
+        String tmp = current.token();
         eat(TokenType.NAME);
         int line = lex.getLine();
 
         return new Variable(line, tmp);
     }
 
+    private Variable procVariable() {
+        Variable var = procName();
+        variables.add(var);
+
+        return var;
+    }
+
     private NumberValue procNumber() {
-        String tmp = current.token;
+        int v = current.intValue();
         eat(TokenType.NUMBER);
 
-        int v;
-        try {
-            v = Integer.parseInt(tmp);
-        } catch (Exception err) {
-            v = 0;
-        }
-
-        return new NumberValue(v);
+        return ValueFactory.number(v);
     }
 
     private TextValue procText() {
-        String tmp = current.token;
+        String tmp = current.token();
 
         eat(TokenType.TEXT);
 
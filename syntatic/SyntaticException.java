@@ -0,0 +1,9 @@
+package syntatic;
+
+public class SyntaticException extends RuntimeException {
+
+    public SyntaticException(String msg) {
+        super(msg);
+    }
+
+}